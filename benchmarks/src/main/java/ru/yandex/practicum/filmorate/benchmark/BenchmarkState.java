@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.generator.DataGenerator;
+import ru.yandex.practicum.filmorate.generator.GeneratorConfig;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationsService;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationStore;
+import ru.yandex.practicum.filmorate.storage.db_impl.FilmDbStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Приложение без веб-сервера на H2 в памяти, заполненной DataGenerator.
+//Масштаб - число пользователей, остальные таблицы растут пропорционально.
+//database=file - база во временном каталоге: так видна цена фиксации записи на диск.
+
+@State(Scope.Benchmark)
+public class BenchmarkState {
+    @Param({"1000", "10000"})
+    public int scale;
+
+    @Param("42")
+    public long seed;
+
+    @Param("mem")
+    public String database;
+
+    ConfigurableApplicationContext context;
+    Path directory;
+    FilmDbStorage filmStorage;
+    FilmService filmService;
+    UserService userService;
+    ReviewService reviewService;
+    RecommendationsService recommendationsService;
+    RecommendationStore recommendationStore;
+    GeneratorConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String url = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+        if ("file".equals(database)) {
+            directory = Files.createTempDirectory("filmorate-benchmark");
+            url = "jdbc:h2:file:" + directory.resolve("benchmark").toAbsolutePath();
+        }
+        //аргументы командной строки перекрывают application.properties
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--filmorate.schema.clean=true",
+                        "--filmorate.recommendations.snapshot.path=",
+                        "--logging.level.root=warn");
+        config = GeneratorConfig.ofScale(scale, seed);
+        context.getBean(DataGenerator.class).generate(config);
+        //данные залиты мимо сервисов, индекс лайков строится заново
+        context.getBean(LikesIndex.class).load();
+
+        filmStorage = context.getBean(FilmDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+        reviewService = context.getBean(ReviewService.class);
+        recommendationsService = context.getBean(RecommendationsService.class);
+        recommendationStore = context.getBean(RecommendationStore.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, config.getUsers() + 1);
+    }
+
+    long randomFilmId() {
+        return ThreadLocalRandom.current().nextLong(1, config.getFilms() + 1);
+    }
+
+    //Новый фильм с двумя жанрами и режиссёром, как в генераторе
+    Film newFilm() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Film film = new Film();
+        film.setName(randomWord() + " " + randomWord());
+        film.setDescription("Description " + random.nextInt());
+        film.setReleaseDate(LocalDate.of(1930, 1, 1).plusDays(random.nextInt(33000)));
+        film.setDuration(60 + random.nextInt(120));
+        film.setMpa(new Rating(1L + random.nextInt(5)));
+        film.setGenres(Set.of(new Genre(1L), new Genre(2L + random.nextInt(5))));
+        film.setDirectors(Set.of(new Director(1L + random.nextInt(config.getDirectors()), null)));
+        return film;
+    }
+
+    String randomWord() {
+        String[] words = DataGenerator.WORDS;
+        return words[ThreadLocalRandom.current().nextInt(words.length)];
+    }
+}
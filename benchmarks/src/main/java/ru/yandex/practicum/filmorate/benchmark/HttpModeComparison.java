@@ -0,0 +1,211 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.generator.DataGenerator;
+import ru.yandex.practicum.filmorate.generator.GeneratorConfig;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Нагрузочное сравнение режимов servlet (Tomcat + JDBC) и reactive (Netty + R2DBC) по HTTP.
+//Замкнутый цикл: каждое из N соединений сразу после ответа шлёт следующий запрос. Смесь запросов:
+//80% GET /films/{id}, 10% GET /users/{id}/feed, 10% PUT/DELETE /films/{id}/like/{userId}.
+//Память на соединение - прирост кучи и direct-буферов после полной сборки под нагрузкой, делённый на N;
+//клиент работает в той же JVM и входит в прирост одинаково для обоих режимов.
+//Аргументы: --mode servlet,reactive --connections 256 --seconds 20 --warmup 5 --scale 10000
+
+public class HttpModeComparison {
+    private static final int MAX_LATENCY_MS = 10_000;
+
+    private final int connections;
+    private final int seconds;
+    private final int warmup;
+    private final int scale;
+
+    private HttpModeComparison(Map<String, String> args) {
+        connections = Integer.parseInt(args.getOrDefault("connections", "256"));
+        seconds = Integer.parseInt(args.getOrDefault("seconds", "20"));
+        warmup = Integer.parseInt(args.getOrDefault("warmup", "5"));
+        scale = Integer.parseInt(args.getOrDefault("scale", "10000"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        HttpModeComparison comparison = new HttpModeComparison(options);
+        System.out.printf("%-9s %6s %10s %8s %8s %8s %8s %12s%n",
+                "mode", "conns", "req/s", "errors", "p50 ms", "p99 ms", "threads", "KiB/conn");
+        for (String mode : options.getOrDefault("mode", "servlet,reactive").split(",")) {
+            System.out.println(comparison.run(mode.trim()));
+        }
+        System.exit(0);
+    }
+
+    private String run(String mode) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles(mode.equals("reactive") ? new String[]{"reactive"} : new String[0])
+                .run("--spring.main.web-application-type=" + mode,
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:http-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--filmorate.schema.clean=true",
+                        "--filmorate.recommendations.snapshot.path=",
+                        "--filmorate.reactive.pool-size=" + Math.min(connections, 64),
+                        "--filmorate.admission.enabled=false",
+                        "--logging.level.root=warn");
+        try {
+            GeneratorConfig config = GeneratorConfig.ofScale(scale, 42);
+            context.getBean(DataGenerator.class).generate(config);
+            context.getBean(LikesIndex.class).load();
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Load load = new Load(base, config, connections);
+
+            load.run(warmup, null);
+            long[] idle = memory();
+            int idleThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            Result result = load.run(seconds, this::sample);
+            long perConnection = (result.heap + result.direct - idle[0] - idle[1]) / connections / 1024;
+            return String.format("%-9s %6d %10.0f %8d %8d %8d %8d %12d", mode, connections,
+                    result.count() / (double) seconds, result.errors.sum(), result.percentile(0.5),
+                    result.percentile(0.99), result.threads - idleThreads, perConnection);
+        } finally {
+            context.close();
+        }
+    }
+
+    //Куча и direct-буферы после полной сборки
+    private long[] memory() {
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool.getMemoryUsed();
+            }
+        }
+        return new long[]{heap, direct};
+    }
+
+    private void sample(Result result) {
+        long[] memory = memory();
+        result.heap = memory[0];
+        result.direct = memory[1];
+        result.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    private static class Load {
+        private final String base;
+        private final GeneratorConfig config;
+        private final int connections;
+        private final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        Load(String base, GeneratorConfig config, int connections) {
+            this.base = base;
+            this.config = config;
+            this.connections = connections;
+        }
+
+        //sampler вызывается в середине прогона, пока все соединения заняты
+        Result run(int seconds, Consumer<Result> sampler) throws InterruptedException {
+            Result result = new Result();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            CountDownLatch done = new CountDownLatch(connections);
+            for (int i = 0; i < connections; i++) {
+                next(result, deadline, done);
+            }
+            if (sampler != null) {
+                Thread.sleep(seconds * 500L);
+                sampler.accept(result);
+            }
+            done.await();
+            return result;
+        }
+
+        private void next(Result result, long deadline, CountDownLatch done) {
+            if (System.nanoTime() >= deadline) {
+                done.countDown();
+                return;
+            }
+            long start = System.nanoTime();
+            client.sendAsync(request(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        if (e != null || response.statusCode() >= 500) {
+                            result.errors.increment();
+                        } else {
+                            result.record(System.nanoTime() - start);
+                        }
+                        next(result, deadline, done);
+                    });
+        }
+
+        private HttpRequest request() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long filmId = random.nextLong(1, config.getFilms() + 1);
+            long userId = random.nextLong(1, config.getUsers() + 1);
+            int kind = random.nextInt(10);
+            HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+            if (kind < 8) {
+                return builder.uri(URI.create(base + "/films/" + filmId)).GET().build();
+            }
+            if (kind == 8) {
+                return builder.uri(URI.create(base + "/users/" + userId + "/feed")).GET().build();
+            }
+            URI like = URI.create(base + "/films/" + filmId + "/like/" + userId);
+            return random.nextBoolean()
+                    ? builder.uri(like).PUT(HttpRequest.BodyPublishers.noBody()).build()
+                    : builder.uri(like).DELETE().build();
+        }
+    }
+
+    private static class Result {
+        //гистограмма задержек с шагом 1 мс
+        private final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MS + 1);
+        private final LongAdder errors = new LongAdder();
+        private long heap;
+        private long direct;
+        private int threads;
+
+        private void record(long nanos) {
+            latencies.incrementAndGet((int) Math.min(MAX_LATENCY_MS, nanos / 1_000_000));
+        }
+
+        private long count() {
+            long total = 0;
+            for (int i = 0; i < latencies.length(); i++) {
+                total += latencies.get(i);
+            }
+            return total;
+        }
+
+        private long percentile(double p) {
+            long total = count();
+            long seen = 0;
+            for (int i = 0; i < latencies.length(); i++) {
+                seen += latencies.get(i);
+                if (seen >= total * p) {
+                    return i;
+                }
+            }
+            return MAX_LATENCY_MS;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+import ru.yandex.practicum.filmorate.service.recommendation.MinHashEngine;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationEngine;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationStore;
+import ru.yandex.practicum.filmorate.service.recommendation.ScoringPool;
+import ru.yandex.practicum.filmorate.service.recommendation.UserBasedEngine;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Время расчёта рекомендаций точным и приближённым (MinHash/LSH) режимами на синтетических данных без базы:
+//пользователи разбиты на группы по вкусам, плюс популярные фильмы с длинными списками лайкнувших.
+//engine - exact или <bands>x<rows>; полнота фильмов против точного режима печатается при подготовке.
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinHashBenchmark {
+    private static final int FILMS = 2000;
+    private static final int GROUPS = 60;
+    private static final int GROUP_FILMS = 40;
+    private static final int LIKES_IN_GROUP = 15;
+    private static final int RANDOM_LIKES = 3;
+    private static final int POPULAR_FILMS = 10;
+    private static final double POPULAR_SHARE = 0.3;
+    private static final int LIMIT = 100;
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+        @Param({"exact", "8x2", "16x2", "32x2", "32x3", "16x4"})
+        public String engine;
+
+        @Param("3000")
+        public int users;
+
+        ScoringPool pool;
+        RecommendationEngine recommender;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            //хранилища нужны индексу только для загрузки из базы, здесь он заполняется вручную
+            LikesIndex likesIndex = new LikesIndex(null, null);
+            Random random = new Random(7);
+            for (long userId = 1; userId <= users; userId++) {
+                int group = random.nextInt(GROUPS);
+                for (int i = 0; i < LIKES_IN_GROUP; i++) {
+                    likesIndex.addLike(1 + group * GROUP_FILMS + random.nextInt(GROUP_FILMS), userId);
+                }
+                for (int i = 0; i < RANDOM_LIKES; i++) {
+                    likesIndex.addLike(1 + random.nextInt(FILMS), userId);
+                }
+                for (int i = 0; i < POPULAR_FILMS; i++) {
+                    if (random.nextDouble() < POPULAR_SHARE) {
+                        likesIndex.addLike(FILMS + 1 + i, userId);
+                    }
+                }
+            }
+            pool = new ScoringPool(1, 1, Integer.MAX_VALUE);
+            UserBasedEngine exact = new UserBasedEngine(likesIndex, pool);
+            if ("exact".equals(engine)) {
+                recommender = exact;
+                return;
+            }
+            String[] config = engine.split("x");
+            MinHashEngine minHash = new MinHashEngine(likesIndex,
+                    Integer.parseInt(config[0]), Integer.parseInt(config[1]), 42);
+            minHash.init();
+            recommender = minHash;
+            System.out.printf("%nbands x rows = %s: полнота фильмов %.3f%n", engine, recall(exact, minHash));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+
+        private double recall(RecommendationEngine exact, RecommendationEngine approximate) {
+            long found = 0;
+            long expected = 0;
+            for (long userId = 1; userId <= users; userId++) {
+                Set<Long> films = new HashSet<>(exact.recommend(userId, LIMIT).getFilmIds());
+                expected += films.size();
+                for (Long filmId : approximate.recommend(userId, LIMIT).getFilmIds()) {
+                    if (films.contains(filmId)) {
+                        found++;
+                    }
+                }
+            }
+            return (double) found / expected;
+        }
+    }
+
+    @Benchmark
+    public RecommendationStore.Entry recommend(EngineState state) {
+        return state.recommender.recommend(ThreadLocalRandom.current().nextLong(1, state.users + 1), LIMIT);
+    }
+}
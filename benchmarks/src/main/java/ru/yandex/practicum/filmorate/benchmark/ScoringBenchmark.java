@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.recommendation.ScoringPool;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Поиск соседей в ScoringPool при разном числе потоков, без базы: списки лайкнувших по фильмам пользователя.
+//Один запрос занимает все потоки пула (request-parallelism = threads), порог параллельности снят.
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PoolState {
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int threads;
+
+        @Param("200000")
+        public int users;
+
+        @Param("60")
+        public int films;
+
+        @Param("20000")
+        public int likesPerFilm;
+
+        ScoringPool pool;
+        long[][] userLists;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ScoringPool(threads, threads, 0);
+            Random random = new Random(3);
+            userLists = new long[films][];
+            for (int i = 0; i < films; i++) {
+                userLists[i] = random.longs(likesPerFilm, 1, users + 1).distinct().sorted().toArray();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long[] findMostSimilar(PoolState state) {
+        return state.pool.findMostSimilar(state.userLists, 0);
+    }
+}
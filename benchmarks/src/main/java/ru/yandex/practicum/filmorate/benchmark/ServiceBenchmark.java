@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Benchmark
+    public List<Film> findPopularMovies(BenchmarkState state) {
+        return state.filmService.findPopularMovies(10, 0, 0);
+    }
+
+    //Расчёт по запросу: хранилище готовых рекомендаций сбрасывается перед каждым вызовом, как после перезапуска,
+    //поэтому измеряются поиск соседей, ранжирование и загрузка фильмов
+    @Benchmark
+    public List<Film> getRecommendedFilmsComputed(BenchmarkState state) {
+        state.recommendationStore.reloaded();
+        return state.recommendationsService.getRecommendedFilms(state.randomUserId());
+    }
+
+    //Попадание в хранилище: рекомендации пользователей CachedUsers посчитаны заранее,
+    //измеряется чтение записи и загрузка фильмов
+    @Benchmark
+    public List<Film> getRecommendedFilmsCached(BenchmarkState state, CachedUsers users) {
+        return state.recommendationsService.getRecommendedFilms(users.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(BenchmarkState state) {
+        return state.userService.getCommonFriends(state.randomUserId(), state.randomUserId());
+    }
+
+    @Benchmark
+    public List<Review> findReviewsByFilm(BenchmarkState state) {
+        return state.reviewService.findAllByFilm(state.randomFilmId(), 10);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedUsers {
+        static final int COUNT = 100;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkState state) {
+            for (long userId = 1; userId <= COUNT; userId++) {
+                state.recommendationsService.getRecommendedFilms(userId);
+            }
+        }
+
+        long randomUserId() {
+            return ThreadLocalRandom.current().nextLong(1, COUNT + 1);
+        }
+    }
+}
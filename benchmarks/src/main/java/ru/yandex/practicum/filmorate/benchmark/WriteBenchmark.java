@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.concurrent.TimeUnit;
+
+//Пропускная способность записей из нескольких операторов. Сравнивается прогон до и после изменения
+//на одной машине; на файловой базе (-p database=file) видна цена каждой фиксации.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Benchmark
+    public Film createFilm(BenchmarkState state) {
+        return state.filmService.create(state.newFilm());
+    }
+
+    @Benchmark
+    public Film updateFilm(BenchmarkState state) {
+        Film film = state.newFilm();
+        film.setId(state.randomFilmId());
+        return state.filmService.update(film);
+    }
+
+    @Benchmark
+    public void addFriend(BenchmarkState state) {
+        long id = state.randomUserId();
+        long friendId = state.randomUserId();
+        if (id != friendId) {
+            state.userService.addFriend(id, friendId);
+        }
+    }
+}
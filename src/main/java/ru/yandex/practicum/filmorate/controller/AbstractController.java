@@ -1,12 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.AbstractEntity;
 import ru.yandex.practicum.filmorate.service.CommonService;
+import ru.yandex.practicum.filmorate.storage.routing.DataSourceRouting;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.function.Supplier;
 
 public abstract class AbstractController <E extends AbstractEntity, S extends CommonService<E>> {
     protected final S service;
@@ -17,13 +23,13 @@ public abstract class AbstractController <E extends AbstractEntity, S extends Co
     }
 
     @GetMapping("/{id}")
-    public E findById(@PathVariable Long id) {
-        return service.findById(id);
+    public ResponseEntity<E> findById(@PathVariable Long id, WebRequest request) {
+        return conditional(getEtag(id), request, () -> service.findById(id));
     }
 
     @GetMapping
-    public List<E> findAll() {
-        return service.findAll();
+    public ResponseEntity<List<E>> findAll(WebRequest request) {
+        return conditional(getEtag(null), request, service::findAll);
     }
 
     @PostMapping
@@ -40,4 +46,26 @@ public abstract class AbstractController <E extends AbstractEntity, S extends Co
     public void delete(@PathVariable Long id) {
         service.delete(id);
     }
-}
\ No newline at end of file
+
+    //ETag, который вычисляется без обращения к базе; id == null - весь список, null - без условных запросов
+    protected String getEtag(Long id) {
+        return null;
+    }
+
+    protected CacheControl getCacheControl() {
+        return CacheControl.noCache();
+    }
+
+    //При совпадении If-None-Match отвечает 304, не загружая данные.
+    //Данные под тегом не должны быть старее его, поэтому реплика подходит, только если догнала основную базу
+    private <T> ResponseEntity<T> conditional(String etag, WebRequest request, Supplier<T> loader) {
+        if (etag == null) {
+            return ResponseEntity.ok(loader.get());
+        }
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(getCacheControl()).build();
+        }
+        DataSourceRouting.requireLatest();
+        return ResponseEntity.ok().eTag(etag).cacheControl(getCacheControl()).body(loader.get());
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.AbstractEntity;
+import ru.yandex.practicum.filmorate.service.CommonService;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+//Реактивный двойник AbstractController с тем же HTTP-контрактом. Методы без реактивной реализации
+//вызывают блокирующие сервисы в Schedulers.boundedElastic(), чтобы не занимать потоки Netty.
+
+public abstract class AbstractReactiveController<E extends AbstractEntity, S extends CommonService<E>> {
+    protected final S service;
+
+    public AbstractReactiveController(S service) {
+        this.service = service;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<E>> findById(@PathVariable Long id, ServerWebExchange exchange) {
+        return conditional(getEtag(id), exchange, Mono.defer(() -> load(id)));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<E>>> findAll(ServerWebExchange exchange) {
+        return conditional(getEtag(null), exchange, blocking(service::findAll));
+    }
+
+    @PostMapping
+    public Mono<E> create(@Valid @RequestBody E data) {
+        return blocking(() -> service.create(data));
+    }
+
+    @PutMapping
+    public Mono<E> update(@Valid @RequestBody E data) {
+        return blocking(() -> service.update(data));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> delete(@PathVariable Long id) {
+        return blocking(() -> service.delete(id));
+    }
+
+    //Наследники с неблокирующим хранилищем переопределяют загрузку по id
+    protected Mono<E> load(Long id) {
+        return blocking(() -> service.findById(id));
+    }
+
+    //То же, что AbstractController.getEtag
+    protected String getEtag(Long id) {
+        return null;
+    }
+
+    protected CacheControl getCacheControl() {
+        return CacheControl.noCache();
+    }
+
+    protected <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    protected Mono<Void> blocking(Runnable call) {
+        return Mono.<Void>fromRunnable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private <T> Mono<ResponseEntity<T>> conditional(String etag, ServerWebExchange exchange, Mono<T> loader) {
+        if (etag == null) {
+            return loader.map(body -> ResponseEntity.ok(body));
+        }
+        if (exchange.checkNotModified(etag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(getCacheControl()).build());
+        }
+        return loader.map(body -> ResponseEntity.ok().eTag(etag).cacheControl(getCacheControl()).body(body));
+    }
+}
@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+//Допуск запросов по группам эндпоинтов: ограничение частоты (token bucket) и числа одновременных запросов.
+//Запрос без токена сразу получает 429. Запрос без свободного места ждёт его до queue-timeout-ms
+//в очереди длиной не больше queue, иначе получает 503. Нулевые concurrency и rate - без ограничения.
+//Настройки filmorate.admission.<группа>.concurrency/rate/burst/queue/queue-timeout-ms.
+//Метрика filmorate.admission с тегами group и outcome = admitted/queued/rate_limited/overloaded.
+
+@Component
+public class AdmissionControl {
+    public enum Group {
+        SEARCH(8, 20), RECOMMENDATIONS(8, 20), RANKING(16, 0), WRITE(32, 0), READ(0, 0);
+
+        private final int concurrency;
+        private final double rate;
+
+        Group(int concurrency, double rate) {
+            this.concurrency = concurrency;
+            this.rate = rate;
+        }
+    }
+
+    private static final Pattern UNLIMITED = Pattern.compile("^/(actuator|admin)(/.*)?$");
+    private static final Pattern SEARCH = Pattern.compile("^/films/search/?$");
+    private static final Pattern RECOMMENDATIONS = Pattern.compile("^/(users/[^/]+/recommendations|films/[^/]+/similar)/?$");
+    private static final Pattern RANKING = Pattern.compile("^/films/(popular|common|director/[^/]+)/?$");
+    private static final Pattern REVIEWS = Pattern.compile("^/reviews/?$");
+
+    private final boolean enabled;
+    private final Map<Group, Limiter> limiters = new EnumMap<>(Group.class);
+
+    @Autowired
+    public AdmissionControl(Environment environment, MeterRegistry registry) {
+        enabled = environment.getProperty("filmorate.admission.enabled", Boolean.class, true);
+        for (Group group : Group.values()) {
+            limiters.put(group, new Limiter(group, environment, registry));
+        }
+    }
+
+    //null - запрос не ограничивается
+    public Group classify(String method, String path, boolean hasFilmId) {
+        if (!enabled || UNLIMITED.matcher(path).matches()) {
+            return null;
+        }
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return Group.WRITE;
+        }
+        if (SEARCH.matcher(path).matches()) {
+            return Group.SEARCH;
+        }
+        if (RECOMMENDATIONS.matcher(path).matches()) {
+            return Group.RECOMMENDATIONS;
+        }
+        if (RANKING.matcher(path).matches() || hasFilmId && REVIEWS.matcher(path).matches()) {
+            return Group.RANKING;
+        }
+        return Group.READ;
+    }
+
+    //Допуск без ожидания; null - мест нет, но запрос можно поставить в очередь через await
+    public Permit tryAdmit(Group group) {
+        return limiters.get(group).tryAdmit();
+    }
+
+    //Ожидание места в очереди; токен уже взят в tryAdmit
+    public Permit await(Group group) {
+        return limiters.get(group).await();
+    }
+
+    public Permit admit(Group group) {
+        Permit permit = tryAdmit(group);
+        return permit != null ? permit : await(group);
+    }
+
+    //Место занято до release; повторный release ничего не делает
+    public static class Permit {
+        private final Semaphore slots;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore slots) {
+            this.slots = slots;
+        }
+
+        public void release() {
+            if (slots != null && released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+
+    public static class RejectedException extends RuntimeException {
+        private final HttpStatus status;
+        private final long retryAfterSeconds;
+
+        private RejectedException(String message, HttpStatus status, long retryAfterSeconds) {
+            super(message);
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static class Limiter {
+        private final TokenBucket bucket;
+        private final Semaphore slots;
+        private final int queue;
+        private final long queueTimeoutMs;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Counter admitted;
+        private final Counter queued;
+        private final Counter rateLimited;
+        private final Counter overloaded;
+
+        Limiter(Group group, Environment environment, MeterRegistry registry) {
+            String name = group.name().toLowerCase();
+            String prefix = "filmorate.admission." + name + ".";
+            int concurrency = environment.getProperty(prefix + "concurrency", Integer.class, group.concurrency);
+            double rate = environment.getProperty(prefix + "rate", Double.class, group.rate);
+            double burst = environment.getProperty(prefix + "burst", Double.class, Math.max(1, rate));
+            queue = environment.getProperty(prefix + "queue", Integer.class, 50);
+            queueTimeoutMs = environment.getProperty(prefix + "queue-timeout-ms", Long.class, 100L);
+            bucket = rate > 0 ? new TokenBucket(rate, burst) : null;
+            slots = concurrency > 0 ? new Semaphore(concurrency) : null;
+
+            admitted = counter(registry, name, "admitted");
+            queued = counter(registry, name, "queued");
+            rateLimited = counter(registry, name, "rate_limited");
+            overloaded = counter(registry, name, "overloaded");
+            if (slots != null) {
+                Gauge.builder("filmorate.admission.active", slots, s -> concurrency - s.availablePermits())
+                        .description("Запросов группы в работе")
+                        .tag("group", name)
+                        .register(registry);
+                Gauge.builder("filmorate.admission.waiting", waiting, AtomicInteger::get)
+                        .description("Запросов группы в очереди")
+                        .tag("group", name)
+                        .register(registry);
+            }
+        }
+
+        Permit tryAdmit() {
+            if (bucket != null && !bucket.tryTake()) {
+                rateLimited.increment();
+                throw new RejectedException("Слишком много запросов, повторите позже.",
+                        HttpStatus.TOO_MANY_REQUESTS, bucket.secondsUntilToken());
+            }
+            if (slots == null || slots.tryAcquire()) {
+                admitted.increment();
+                return new Permit(slots);
+            }
+            if (queue <= 0 || queueTimeoutMs <= 0) {
+                throw overloaded();
+            }
+            return null;
+        }
+
+        Permit await() {
+            if (waiting.incrementAndGet() > queue) {
+                waiting.decrementAndGet();
+                throw overloaded();
+            }
+            try {
+                if (slots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    queued.increment();
+                    return new Permit(slots);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+            throw overloaded();
+        }
+
+        private RejectedException overloaded() {
+            overloaded.increment();
+            return new RejectedException("Сервис перегружен, повторите запрос позже.",
+                    HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+
+        private static Counter counter(MeterRegistry registry, String group, String outcome) {
+            return Counter.builder("filmorate.admission")
+                    .description("Решения о допуске запросов")
+                    .tag("group", group)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    //Ведро на burst токенов, пополняется со скоростью rate в секунду
+    static class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilled = System.nanoTime();
+
+        TokenBucket(double rate, double capacity) {
+            this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryTake() {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized long secondsUntilToken() {
+            refill();
+            double nanos = (1 - tokens) / tokensPerNano;
+            return Math.max(1, (long) Math.ceil(nanos / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilled) * tokensPerNano);
+            refilled = now;
+        }
+    }
+}
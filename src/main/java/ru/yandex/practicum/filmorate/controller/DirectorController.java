@@ -1,19 +1,29 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
 @RestController
 @RequestMapping("/directors")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DirectorController extends AbstractController<Director, DirectorService> {
+    private final ChangeVersions versions;
 
     @Autowired
-    public DirectorController(DirectorService service) {
+    public DirectorController(DirectorService service, ChangeVersions versions) {
         super(service);
+        this.versions = versions;
+    }
+
+    @Override
+    protected String getEtag(Long id) {
+        return versions.etag(ChangeVersions.Table.DIRECTORS);
     }
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 @RestControllerAdvice
 public class ErrorHandler {
 
@@ -37,6 +40,13 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    //пул тяжёлых запросов переполнен или запрос не уложился в тайм-аут
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleOverload(Exception e) {
+        return new ErrorResponse("Сервис перегружен, повторите запрос позже.");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(Throwable e) {
@@ -1,20 +1,35 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/films")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FilmController extends AbstractController<Film, FilmService> {
+    private final ChangeVersions versions;
+    private final WorkloadExecutors executors;
 
     @Autowired
-    public FilmController(FilmService service) {
+    public FilmController(FilmService service, ChangeVersions versions, WorkloadExecutors executors) {
         super(service);
+        this.versions = versions;
+        this.executors = executors;
+    }
+
+    //Условные запросы только для отдельного фильма: список меняется при любом изменении любого фильма
+    @Override
+    protected String getEtag(Long id) {
+        return id == null ? null : versions.filmEtag(id);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -28,27 +43,34 @@ public class FilmController extends AbstractController<Film, FilmService> {
     }
 
     @GetMapping("/popular")
-    public List<Film> findPopularMovies(
+    public CompletableFuture<List<Film>> findPopularMovies(
             @RequestParam(defaultValue = "10") int count,
             @RequestParam(defaultValue = "0") int genreId,
             @RequestParam(defaultValue = "0") int year) {
-        return service.findPopularMovies(count, genreId, year);
+        return executors.submit(Workload.RANKING, () -> service.findPopularMovies(count, genreId, year));
     }
 
     @GetMapping("/common")
-    public List<Film> getCommonMovies(@RequestParam Long userId, @RequestParam Long friendId) {
-        return service.commonMovies(userId, friendId);
+    public CompletableFuture<List<Film>> getCommonMovies(@RequestParam Long userId, @RequestParam Long friendId) {
+        return executors.submit(Workload.RANKING, () -> service.commonMovies(userId, friendId));
+    }
+
+    @GetMapping("/{id}/similar")
+    public CompletableFuture<List<Film>> findSimilar(@PathVariable Long id,
+                                                     @RequestParam(defaultValue = "10") int count) {
+        return executors.submit(Workload.RECOMMENDATIONS, () -> service.findSimilar(id, count));
     }
 
     @GetMapping("/director/{directorId}")
-    public List<Film> findFilmsByDirector(@PathVariable Long directorId, @RequestParam String sortBy) {
-        return service.findFilmsByDirector(directorId, sortBy);
+    public CompletableFuture<List<Film>> findFilmsByDirector(@PathVariable Long directorId,
+                                                             @RequestParam String sortBy) {
+        return executors.submit(Workload.RANKING, () -> service.findFilmsByDirector(directorId, sortBy));
     }
 
     @GetMapping("search")
-    public List<Film> search(@RequestParam(required = false) String query,
-                             @RequestParam(required = false) String by) {
-        return service.searchBy(query, by);
+    public CompletableFuture<List<Film>> search(@RequestParam(required = false) String query,
+                                                @RequestParam(required = false) String by) {
+        return executors.submit(Workload.SEARCH, () -> service.searchBy(query, by));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.routing.DataSourceRouting;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Готовый JSON фильмов в UTF-8 по версии фильма из ChangeVersions: любое изменение фильма, лайков, жанров,
+//режиссёров или рейтингов меняет версию, и старая запись больше не подходит.
+//Запись кладётся, только если версия фильма не новее последовательности, снятой в начале HTTP-запроса
+//до чтения из базы: иначе фильм мог быть прочитан до изменения, а сохранён под новой версией.
+//Асинхронные запросы проходят интерцептор второй раз, уже после чтения, - там последовательность не переснимается.
+//По той же причине не кладутся фильмы запросов, которые читали с реплики: она может отставать от версии.
+
+@Component
+public class FilmJsonCache implements HandlerInterceptor {
+    private static final String SEQUENCE_ATTRIBUTE = FilmJsonCache.class.getName() + ".sequence";
+
+    private final ObjectMapper objectMapper;
+    private final ChangeVersions versions;
+    private final int maxSize;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public FilmJsonCache(ObjectMapper objectMapper, ChangeVersions versions, MeterRegistry registry,
+                         @Value("${filmorate.films.json-cache.size:10000}") int maxSize) {
+        this.objectMapper = objectMapper;
+        this.versions = versions;
+        this.maxSize = maxSize;
+        hits = Counter.builder("filmorate.films.json-cache").tag("result", "hit").register(registry);
+        misses = Counter.builder("filmorate.films.json-cache").tag("result", "miss").register(registry);
+        Gauge.builder("filmorate.films.json-cache.size", entries, Map::size).register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(SEQUENCE_ATTRIBUTE) == null) {
+            request.setAttribute(SEQUENCE_ATTRIBUTE, versions.getSequence());
+        }
+        return true;
+    }
+
+    public byte[] toJson(Film film) throws IOException {
+        long version = versions.getFilmVersion(film.getId());
+        Entry entry = entries.get(film.getId());
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.json;
+        }
+        misses.increment();
+        byte[] json = objectMapper.writeValueAsBytes(film);
+        Long sequence = getRequestSequence();
+        if (sequence != null && version <= sequence && !isReadFromReplica()) {
+            if (entry == null && entries.size() >= maxSize) {
+                evict();
+            }
+            entries.put(film.getId(), new Entry(version, json));
+        }
+        return json;
+    }
+
+    //Освобождает десятую часть кэша; порядок обхода ConcurrentHashMap для горячих фильмов случаен
+    private void evict() {
+        Iterator<Long> iterator = entries.keySet().iterator();
+        for (int i = 0; i < Math.max(1, maxSize / 10) && iterator.hasNext(); i++) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static Long getRequestSequence() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (Long) attributes.getAttribute(SEQUENCE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static boolean isReadFromReplica() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        DataSourceRouting.Scope scope = (DataSourceRouting.Scope) attributes.getAttribute(
+                ReplicaRoutingFilter.SCOPE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return scope != null && scope.isReplicaUsed();
+    }
+
+    private static class Entry {
+        private final long version;
+        private final byte[] json;
+
+        Entry(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+//Пишет фильм или коллекцию фильмов из готовых фрагментов FilmJsonCache, не сериализуя их заново.
+//Только для записи: тела запросов по-прежнему читает Jackson.
+
+public class FilmJsonConverter extends AbstractGenericHttpMessageConverter<Object> {
+    private final FilmJsonCache cache;
+
+    public FilmJsonConverter(FilmJsonCache cache) {
+        super(MediaType.APPLICATION_JSON);
+        this.cache = cache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Film.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (supports(clazz)) {
+            return true;
+        }
+        if (type == null || !Collection.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element != null && supports(element);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        if (value instanceof Film) {
+            body.write(cache.toJson((Film) value));
+            return;
+        }
+        body.write('[');
+        boolean first = true;
+        for (Object film : (Collection<?>) value) {
+            if (!first) {
+                body.write(',');
+            }
+            body.write(cache.toJson((Film) film));
+            first = false;
+        }
+        body.write(']');
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Фильмы читаются через Jackson", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Фильмы читаются через Jackson", inputMessage);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+
+//AdmissionControl в реактивном режиме. Поток Netty не ждёт места: очередь ожидает в boundedElastic,
+//место освобождается по завершении ответа
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAdmissionFilter implements WebFilter {
+    private final AdmissionControl admission;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ReactiveAdmissionFilter(AdmissionControl admission, ObjectMapper objectMapper) {
+        this.admission = admission;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        AdmissionControl.Group group = admission.classify(request.getMethodValue(), request.getPath().value(),
+                request.getQueryParams().containsKey("filmId"));
+        if (group == null) {
+            return chain.filter(exchange);
+        }
+        AdmissionControl.Permit permit;
+        try {
+            permit = admission.tryAdmit(group);
+        } catch (AdmissionControl.RejectedException e) {
+            return reject(exchange.getResponse(), e);
+        }
+        Mono<AdmissionControl.Permit> admitted = permit != null
+                ? Mono.just(permit)
+                : Mono.fromCallable(() -> admission.await(group)).subscribeOn(Schedulers.boundedElastic());
+        return admitted
+                .onErrorResume(AdmissionControl.RejectedException.class,
+                        e -> reject(exchange.getResponse(), e).then(Mono.<AdmissionControl.Permit>empty()))
+                .flatMap(p -> chain.filter(exchange).doFinally(signal -> p.release()));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, AdmissionControl.RejectedException e) {
+        response.setStatusCode(e.getStatus());
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ErrorResponse(e.getMessage()));
+        } catch (JsonProcessingException ex) {
+            return response.setComplete();
+        }
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
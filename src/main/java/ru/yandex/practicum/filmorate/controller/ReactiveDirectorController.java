@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+
+@RestController
+@RequestMapping("/directors")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDirectorController extends AbstractReactiveController<Director, DirectorService> {
+    private final ChangeVersions versions;
+
+    @Autowired
+    public ReactiveDirectorController(DirectorService service, ChangeVersions versions) {
+        super(service);
+        this.versions = versions;
+    }
+
+    @Override
+    protected String getEtag(Long id) {
+        return versions.etag(ChangeVersions.Table.DIRECTORS);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+import java.util.List;
+
+//Фильм по id и лайки - через R2DBC, тяжёлые выборки - в тех же пулах WorkloadExecutors, что и в MVC
+
+@RestController
+@RequestMapping("/films")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmController extends AbstractReactiveController<Film, FilmService> {
+    private final ReactiveFilmService reactiveService;
+    private final ChangeVersions versions;
+    private final WorkloadExecutors executors;
+
+    @Autowired
+    public ReactiveFilmController(FilmService service, ReactiveFilmService reactiveService,
+                                 ChangeVersions versions, WorkloadExecutors executors) {
+        super(service);
+        this.reactiveService = reactiveService;
+        this.versions = versions;
+        this.executors = executors;
+    }
+
+    @Override
+    protected Mono<Film> load(Long id) {
+        return reactiveService.findById(id);
+    }
+
+    @Override
+    protected String getEtag(Long id) {
+        return id == null ? null : versions.filmEtag(id);
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable Long id, @PathVariable Long userId) {
+        return reactiveService.addLike(id, userId);
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> removeLike(@PathVariable Long id, @PathVariable Long userId) {
+        return reactiveService.removeLike(id, userId);
+    }
+
+    @GetMapping("/popular")
+    public Mono<List<Film>> findPopularMovies(
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(defaultValue = "0") int genreId,
+            @RequestParam(defaultValue = "0") int year) {
+        return Mono.fromFuture(() -> executors.submit(Workload.RANKING,
+                () -> service.findPopularMovies(count, genreId, year)));
+    }
+
+    @GetMapping("/common")
+    public Mono<List<Film>> getCommonMovies(@RequestParam Long userId, @RequestParam Long friendId) {
+        return Mono.fromFuture(() -> executors.submit(Workload.RANKING, () -> service.commonMovies(userId, friendId)));
+    }
+
+    @GetMapping("/{id}/similar")
+    public Mono<List<Film>> findSimilar(@PathVariable Long id, @RequestParam(defaultValue = "10") int count) {
+        return Mono.fromFuture(() -> executors.submit(Workload.RECOMMENDATIONS, () -> service.findSimilar(id, count)));
+    }
+
+    @GetMapping("/director/{directorId}")
+    public Mono<List<Film>> findFilmsByDirector(@PathVariable Long directorId, @RequestParam String sortBy) {
+        return Mono.fromFuture(() -> executors.submit(Workload.RANKING,
+                () -> service.findFilmsByDirector(directorId, sortBy)));
+    }
+
+    @GetMapping("search")
+    public Mono<List<Film>> search(@RequestParam(required = false) String query,
+                                   @RequestParam(required = false) String by) {
+        return Mono.fromFuture(() -> executors.submit(Workload.SEARCH, () -> service.searchBy(query, by)));
+    }
+}
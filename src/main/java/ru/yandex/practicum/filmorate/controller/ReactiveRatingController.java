@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.service.ChangeVersions;
+import ru.yandex.practicum.filmorate.service.RatingService;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/mpa")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRatingController extends AbstractReactiveController<Rating, RatingService> {
+    private final ChangeVersions versions;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public ReactiveRatingController(RatingService service, ChangeVersions versions,
+                                    @Value("${filmorate.http.reference-max-age-s:60}") long maxAge) {
+        super(service);
+        this.versions = versions;
+        this.cacheControl = CacheControl.maxAge(maxAge, TimeUnit.SECONDS).mustRevalidate();
+    }
+
+    @Override
+    protected String getEtag(Long id) {
+        return versions.etag(ChangeVersions.Table.RATINGS);
+    }
+
+    @Override
+    protected CacheControl getCacheControl() {
+        return cacheControl;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.service.ReactiveReviewService;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+
+import java.util.List;
+
+//Чтение отзывов - через R2DBC; оценки идут в ReviewGradeCounters, которые могут подгрузить отзыв из базы
+
+@RestController
+@RequestMapping("/reviews")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewController extends AbstractReactiveController<Review, ReviewService> {
+    private final ReactiveReviewService reactiveService;
+
+    @Autowired
+    public ReactiveReviewController(ReviewService service, ReactiveReviewService reactiveService) {
+        super(service);
+        this.reactiveService = reactiveService;
+    }
+
+    @Override
+    protected Mono<Review> load(Long id) {
+        return reactiveService.findById(id);
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable Long id, @PathVariable Long userId) {
+        return blocking(() -> service.addLike(id, userId));
+    }
+
+    @PutMapping("/{id}/dislike/{userId}")
+    public Mono<Void> addDislike(@PathVariable Long id, @PathVariable Long userId) {
+        return blocking(() -> service.addDislike(id, userId));
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> delLike(@PathVariable Long id, @PathVariable Long userId) {
+        return blocking(() -> service.delLike(id, userId));
+    }
+
+    @DeleteMapping("/{id}/dislike/{userId}")
+    public Mono<Void> delDislike(@PathVariable Long id, @PathVariable Long userId) {
+        return blocking(() -> service.delDislike(id, userId));
+    }
+
+    @GetMapping(params = {"filmId"})
+    public Mono<List<Review>> findAllByFilm(@RequestParam(required = false) Long filmId,
+                                            @RequestParam(defaultValue = "10") Integer count) {
+        return reactiveService.findAllByFilm(filmId, count);
+    }
+}
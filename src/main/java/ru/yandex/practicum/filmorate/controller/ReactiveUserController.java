@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveEventService;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+import ru.yandex.practicum.filmorate.service.RecommendationsService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+
+//Пользователь по id и лента событий - через R2DBC, остальное - блокирующие сервисы
+
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController extends AbstractReactiveController<User, UserService> {
+    private final ReactiveUserService reactiveService;
+    private final ReactiveEventService eventService;
+    private final RecommendationsService recommendationsService;
+    private final WorkloadExecutors executors;
+
+    @Autowired
+    public ReactiveUserController(UserService service, ReactiveUserService reactiveService,
+                                  ReactiveEventService eventService, RecommendationsService recommendationsService,
+                                  WorkloadExecutors executors) {
+        super(service);
+        this.reactiveService = reactiveService;
+        this.eventService = eventService;
+        this.recommendationsService = recommendationsService;
+        this.executors = executors;
+    }
+
+    @Override
+    protected Mono<User> load(Long id) {
+        return reactiveService.findById(id);
+    }
+
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Void> addFriend(@PathVariable("id") Long id1, @PathVariable("friendId") Long id2) {
+        return blocking(() -> service.addFriend(id1, id2));
+    }
+
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Void> removeFriend(@PathVariable("id") Long id1, @PathVariable("friendId") Long id2) {
+        return blocking(() -> service.removeFriend(id1, id2));
+    }
+
+    @GetMapping("/{id}/friends")
+    public Mono<List<User>> getFriends(@PathVariable Long id) {
+        return blocking(() -> service.getFriends(id));
+    }
+
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Mono<List<User>> getCommonFriends(@PathVariable("id") Long id1, @PathVariable("otherId") long id2) {
+        return blocking(() -> service.getCommonFriends(id1, id2));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Mono<List<Film>> getRecommendedFilms(@PathVariable("id") Long userId) {
+        return Mono.fromFuture(() -> executors.submit(Workload.RECOMMENDATIONS,
+                () -> recommendationsService.getRecommendedFilms(userId)));
+    }
+
+    @GetMapping("/{id}/feed")
+    public Mono<List<Event>> getFeed(@PathVariable Long id) {
+        return eventService.findEventsByUserId(id).collectList();
+    }
+}
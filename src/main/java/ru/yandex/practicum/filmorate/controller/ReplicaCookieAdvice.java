@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ru.yandex.practicum.filmorate.storage.routing.Replicas;
+
+import javax.servlet.http.HttpServletRequest;
+
+//Ставит cookie позиции из ReplicaRoutingFilter перед записью тела ответа: к этому моменту контроллер
+//уже записал всё в базу, а после тела заголовки могут быть уже отправлены
+
+@ControllerAdvice
+public class ReplicaCookieAdvice implements ResponseBodyAdvice<Object> {
+    private final Replicas replicas;
+
+    @Autowired
+    public ReplicaCookieAdvice(Replicas replicas) {
+        this.replicas = replicas;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return replicas.isEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest) {
+            HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+            if (!ReplicaRoutingFilter.isRead(servletRequest.getMethod())) {
+                response.getHeaders().add(HttpHeaders.SET_COOKIE, ReplicaRoutingFilter.cookie(replicas, servletRequest));
+            }
+        }
+        return body;
+    }
+}
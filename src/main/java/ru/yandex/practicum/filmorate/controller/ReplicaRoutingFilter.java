@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import ru.yandex.practicum.filmorate.storage.routing.DataSourceRouting;
+import ru.yandex.practicum.filmorate.storage.routing.Replicas;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//Чтения GET-запросов идут на реплики, всё остальное - в основную базу. Ответ на изменяющий запрос ставит cookie
+//с позицией основной базы после записи, и пока реплики её не догнали, чтения этого клиента идут в основную базу.
+//Ответы с телом получают cookie из ReplicaCookieAdvice до записи тела, остальные - здесь.
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+    public static final String COOKIE = "filmorate-position";
+    static final String SCOPE_ATTRIBUTE = ReplicaRoutingFilter.class.getName() + ".scope";
+    private static final String STAMPED_ATTRIBUTE = ReplicaRoutingFilter.class.getName() + ".stamped";
+
+    private final Replicas replicas;
+
+    @Autowired
+    public ReplicaRoutingFilter(Replicas replicas) {
+        this.replicas = replicas;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !replicas.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isRead(request.getMethod())) {
+            Cookie cookie = WebUtils.getCookie(request, COOKIE);
+            try (DataSourceRouting.Scope scope = DataSourceRouting.replicas(
+                    replicas.parseToken(cookie != null ? cookie.getValue() : null))) {
+                request.setAttribute(SCOPE_ATTRIBUTE, scope);
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!response.isCommitted() && request.getAttribute(STAMPED_ATTRIBUTE) == null) {
+                response.addHeader(HttpHeaders.SET_COOKIE, cookie(replicas, request));
+            }
+        }
+    }
+
+    static boolean isRead(String method) {
+        return method.equals("GET") || method.equals("HEAD");
+    }
+
+    //Значение Set-Cookie с позицией на момент вызова; запрос запоминает, что cookie уже поставлен
+    static String cookie(Replicas replicas, HttpServletRequest request) {
+        request.setAttribute(STAMPED_ATTRIBUTE, Boolean.TRUE);
+        return ResponseCookie.from(COOKIE, replicas.getToken())
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build()
+                .toString();
+    }
+}
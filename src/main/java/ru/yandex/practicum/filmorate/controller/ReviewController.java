@@ -1,19 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/reviews")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReviewController extends AbstractController<Review, ReviewService> {
+    private final WorkloadExecutors executors;
 
     @Autowired
-    public ReviewController(ReviewService service) {
+    public ReviewController(ReviewService service, WorkloadExecutors executors) {
         super(service);
+        this.executors = executors;
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -37,8 +43,8 @@ public class ReviewController extends AbstractController<Review, ReviewService>
     }
 
     @GetMapping(params = {"filmId"})
-    public List<Review> findAllByFilm(@RequestParam(required = false) Long filmId,
-                                      @RequestParam(defaultValue = "10") Integer count) {
-        return service.findAllByFilm(filmId, count);
+    public CompletableFuture<List<Review>> findAllByFilm(@RequestParam(required = false) Long filmId,
+                                                         @RequestParam(defaultValue = "10") Integer count) {
+        return executors.submit(Workload.RANKING, () -> service.findAllByFilm(filmId, count));
     }
 }
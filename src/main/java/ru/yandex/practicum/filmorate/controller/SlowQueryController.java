@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.metrics.SlowQueryLog;
+
+import java.util.List;
+
+//Журнал медленных запросов к базе: худшие отпечатки SQL с планами выполнения
+
+@RestController
+@RequestMapping("/admin/slow-queries")
+public class SlowQueryController {
+    private final SlowQueryLog slowQueryLog;
+
+    @Autowired
+    public SlowQueryController(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @GetMapping
+    public List<SlowQueryLog.Offender> findAll() {
+        return slowQueryLog.getOffenders();
+    }
+
+    @DeleteMapping
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
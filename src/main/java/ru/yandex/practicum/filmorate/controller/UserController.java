@@ -1,7 +1,9 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
@@ -10,20 +12,23 @@ import ru.yandex.practicum.filmorate.service.RecommendationsService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController extends AbstractController<User, UserService> {
     private RecommendationsService recommendationsService;
     private EventService eventService;
+    private final WorkloadExecutors executors;
 
     @Autowired
     public UserController(UserService service, RecommendationsService recommendationsService,
-                          EventService eventService) {
+                          EventService eventService, WorkloadExecutors executors) {
         super(service);
         this.recommendationsService = recommendationsService;
         this.eventService = eventService;
+        this.executors = executors;
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -47,8 +52,8 @@ public class UserController extends AbstractController<User, UserService> {
     }
 
     @GetMapping("/{id}/recommendations")
-    public Set<Film> getRecommendedFilms(@PathVariable("id") Long userId) {
-        return recommendationsService.getRecommendedFilms(userId);
+    public CompletableFuture<List<Film>> getRecommendedFilms(@PathVariable("id") Long userId) {
+        return executors.submit(Workload.RECOMMENDATIONS, () -> recommendationsService.getRecommendedFilms(userId));
     }
 
     @GetMapping("/{id}/feed")
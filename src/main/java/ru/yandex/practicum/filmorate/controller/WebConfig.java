@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+//Ответы с фильмами пишутся из FilmJsonCache раньше общего конвертера Jackson
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final FilmJsonCache filmJsonCache;
+
+    @Autowired
+    public WebConfig(FilmJsonCache filmJsonCache) {
+        this.filmJsonCache = filmJsonCache;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(filmJsonCache);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new FilmJsonConverter(filmJsonCache));
+    }
+}
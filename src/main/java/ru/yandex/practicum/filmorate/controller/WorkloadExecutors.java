@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.metrics.QueryCounter;
+import ru.yandex.practicum.filmorate.storage.routing.DataSourceRouting;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Отдельные ограниченные пулы для тяжёлых эндпоинтов, чтобы поиск и рекомендации не занимали потоки Tomcat,
+//которые нужны дешёвым запросам по id. Переполненная очередь - RejectedExecutionException,
+//превышение времени - TimeoutException, оба превращаются в 503. Задача по тайм-ауту не прерывается:
+//JDBC-запрос всё равно не отменить, но ответ клиенту не ждёт его окончания.
+//При filmorate.async.enabled=false задачи выполняются в потоке запроса.
+
+@Component
+public class WorkloadExecutors {
+    public enum Workload {
+        SEARCH, RECOMMENDATIONS, RANKING
+    }
+
+    private final boolean enabled;
+    private final Map<Workload, ExecutorService> executors = new EnumMap<>(Workload.class);
+    private final Map<Workload, Long> timeouts = new EnumMap<>(Workload.class);
+
+    @Autowired
+    public WorkloadExecutors(Environment environment, MeterRegistry registry) {
+        enabled = environment.getProperty("filmorate.async.enabled", Boolean.class, true);
+        for (Workload workload : Workload.values()) {
+            String name = workload.name().toLowerCase();
+            String prefix = "filmorate.async." + name + ".";
+            int threads = environment.getProperty(prefix + "threads", Integer.class, 4);
+            int queue = environment.getProperty(prefix + "queue", Integer.class, 100);
+            timeouts.put(workload, environment.getProperty(prefix + "timeout-ms", Long.class, 5000L));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queue), threadFactory(name));
+            executors.put(workload, ExecutorServiceMetrics.monitor(registry, executor, "filmorate.async." + name));
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Workload workload, Supplier<T> task) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return CompletableFuture.supplyAsync(DataSourceRouting.propagate(QueryCounter.propagate(task)),
+                executors.get(workload))
+                .orTimeout(timeouts.get(workload), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger number = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "filmorate-" + name + "-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
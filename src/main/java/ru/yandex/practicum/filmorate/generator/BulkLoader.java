@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Вставка строк в одну таблицу: через временный CSV и CSVREAD в H2 или пачками JDBC.
+//Строки попадают в базу не позже close(), порядок вставки таблиц определяет порядок close().
+//Строки таблиц шардов раскладываются по шардам пользователей из столбцов userColumns, по загрузчику на шард;
+//строка с несколькими пользователями (дружба) копируется в шард каждого из них.
+
+abstract class BulkLoader implements AutoCloseable {
+    private static final int BATCH = 10_000;
+
+    protected final JdbcTemplate jdbcTemplate;
+    protected final String table;
+    protected final String[] columns;
+    private long rows;
+
+    private BulkLoader(JdbcTemplate jdbcTemplate, String table, String... columns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.columns = columns;
+    }
+
+    static BulkLoader open(JdbcTemplate jdbcTemplate, boolean csv, String table, String... columns) {
+        return csv ? new CsvLoader(jdbcTemplate, table, columns) : new BatchLoader(jdbcTemplate, table, columns);
+    }
+
+    static BulkLoader open(Shards shards, boolean csv, String table, int[] userColumns, String... columns) {
+        if (!shards.isSharded()) {
+            return open(shards.get(0), csv, table, columns);
+        }
+        return new ShardedLoader(shards, csv, table, userColumns, columns);
+    }
+
+    void row(Object... values) {
+        write(values);
+        rows++;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    protected abstract void write(Object[] values);
+
+    @Override
+    public abstract void close();
+
+    private static class BatchLoader extends BulkLoader {
+        private final String sql;
+        private final List<Object[]> batch = new ArrayList<>(BATCH);
+
+        BatchLoader(JdbcTemplate jdbcTemplate, String table, String... columns) {
+            super(jdbcTemplate, table, columns);
+            sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES(" +
+                    String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        }
+
+        @Override
+        protected void write(Object[] values) {
+            batch.add(values);
+            if (batch.size() == BATCH) {
+                flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static class ShardedLoader extends BulkLoader {
+        private final Shards shards;
+        private final boolean csv;
+        private final int[] userColumns;
+        private final BulkLoader[] loaders;
+
+        ShardedLoader(Shards shards, boolean csv, String table, int[] userColumns, String... columns) {
+            super(null, table, columns);
+            this.shards = shards;
+            this.csv = csv;
+            this.userColumns = userColumns;
+            this.loaders = new BulkLoader[shards.size()];
+        }
+
+        @Override
+        protected void write(Object[] values) {
+            boolean[] written = new boolean[loaders.length];
+            for (int column : userColumns) {
+                int shard = shards.indexOf(((Number) values[column]).longValue());
+                if (written[shard]) {
+                    continue;
+                }
+                written[shard] = true;
+                if (loaders[shard] == null) {
+                    loaders[shard] = open(shards.get(shard), csv, table, columns);
+                }
+                loaders[shard].row(values);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (BulkLoader loader : loaders) {
+                if (loader != null) {
+                    loader.close();
+                }
+            }
+        }
+    }
+
+    private static class CsvLoader extends BulkLoader {
+        private final Path file;
+        private final BufferedWriter writer;
+
+        CsvLoader(JdbcTemplate jdbcTemplate, String table, String... columns) {
+            super(jdbcTemplate, table, columns);
+            try {
+                file = Files.createTempFile("filmorate-" + table.toLowerCase() + "-", ".csv");
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                writer.write(String.join(",", columns));
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected void write(Object[] values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write('"');
+                    writer.write(String.valueOf(values[i]).replace("\"", "\"\""));
+                    writer.write('"');
+                }
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+                String columnList = String.join(", ", columns);
+                //H2 читает заголовок CSV при разборе запроса, поэтому имя файла - литерал, а не параметр
+                String fileName = file.toAbsolutePath().toString().replace("'", "''");
+                jdbcTemplate.update("INSERT INTO " + table + " (" + columnList + ") SELECT " + columnList +
+                        " FROM CSVREAD('" + fileName + "', NULL, 'charset=UTF-8')");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    //временный файл останется в tmp
+                }
+            }
+        }
+    }
+}
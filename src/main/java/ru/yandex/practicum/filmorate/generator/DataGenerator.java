@@ -0,0 +1,265 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+//Детерминированный генератор данных для нагрузочных тестов. Заполняет пустую базу (кроме жанров и рейтингов):
+//пользователи, фильмы, режиссёры, лайки с популярностью фильмов по Ципфу, дружба, отзывы, оценки и события.
+//У каждой сущности свой генератор случайных чисел из seed и её id, поэтому данные не зависят
+//от порядка обхода, а оценки отзыва можно сгенерировать повторно, не храня их в памяти.
+//Лайки, дружба, оценки и события пишутся в шарды; id событий задаются явно, чтобы быть сквозными.
+
+@Component
+@Slf4j
+public class DataGenerator {
+    public static final String[] WORDS = {"Star", "Night", "Love", "War", "River", "Ghost", "City", "Dream",
+            "Iron", "Blue", "Storm", "Silent", "Golden", "Last", "Wild", "Lost"};
+
+    private static final long USERS = 1;
+    private static final long FILMS = 2;
+    private static final long LIKES = 3;
+    private static final long FRIENDS = 4;
+    private static final long REVIEWS = 5;
+    private static final long GRADES = 6;
+    private static final long DIRECTORS = 7;
+    private static final long START_TIMESTAMP = 1_600_000_000_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+
+    @Autowired
+    public DataGenerator(JdbcTemplate jdbcTemplate, Shards shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+    }
+
+    //Генератор задаёт id явно, поэтому работает только с базой без пользователей и фильмов
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USERS", Long.class) == 0
+                && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILMS", Long.class) == 0;
+    }
+
+    //Возвращает число вставленных строк по таблицам
+    public Map<String, Long> generate(GeneratorConfig config) {
+        long start = System.currentTimeMillis();
+        boolean csv = config.isBulk() && isH2();
+        int genres = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM GENRES", Integer.class);
+        int ratings = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM RATINGS", Integer.class);
+        Map<String, Long> rows = new LinkedHashMap<>();
+        long[] timestamp = {START_TIMESTAMP};
+
+        try (BulkLoader users = BulkLoader.open(jdbcTemplate, csv, "USERS",
+                "USER_ID", "EMAIL", "LOGIN", "NAME", "BIRTHDAY")) {
+            for (long id = 1; id <= config.getUsers(); id++) {
+                SplittableRandom random = random(config, USERS, id);
+                users.row(id, "user" + id + "@mail.test", "user" + id, word(random) + " " + id,
+                        LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000)));
+            }
+            rows.put("USERS", users.getRows());
+        }
+        try (BulkLoader directors = BulkLoader.open(jdbcTemplate, csv, "DIRECTORS", "DIRECTOR_ID", "NAME")) {
+            for (long id = 1; id <= config.getDirectors(); id++) {
+                directors.row(id, word(random(config, DIRECTORS, id)) + " Director " + id);
+            }
+            rows.put("DIRECTORS", directors.getRows());
+        }
+        try (BulkLoader films = BulkLoader.open(jdbcTemplate, csv, "FILMS",
+                "FILM_ID", "NAME", "DESCRIPTION", "RELEASE_DATE", "DURATION", "RATING_ID")) {
+            for (long id = 1; id <= config.getFilms(); id++) {
+                SplittableRandom random = random(config, FILMS, id);
+                films.row(id, word(random) + " " + word(random) + " " + id, "Description " + id,
+                        LocalDate.of(1930, 1, 1).plusDays(random.nextInt(33000)), 60 + random.nextInt(120),
+                        1 + random.nextInt(ratings));
+            }
+            rows.put("FILMS", films.getRows());
+        }
+        try (BulkLoader filmsGenres = BulkLoader.open(jdbcTemplate, csv, "FILMS_GENRES", "FILM_ID", "GENRE_ID");
+             BulkLoader filmsDirectors = BulkLoader.open(jdbcTemplate, csv, "FILMS_DIRECTORS",
+                     "FILM_ID", "DIRECTOR_ID")) {
+            for (long id = 1; id <= config.getFilms(); id++) {
+                SplittableRandom random = random(config, FILMS, -id);
+                for (long genreId : distinct(random, 1 + random.nextInt(Math.min(3, genres)), 1, genres)) {
+                    filmsGenres.row(id, genreId);
+                }
+                if (config.getDirectors() > 0 && random.nextInt(10) != 0) {
+                    filmsDirectors.row(id, 1 + random.nextInt(config.getDirectors()));
+                }
+            }
+            rows.put("FILMS_GENRES", filmsGenres.getRows());
+            rows.put("FILMS_DIRECTORS", filmsDirectors.getRows());
+        }
+
+        try (BulkLoader events = BulkLoader.open(shards, csv, "EVENTS", new int[]{2},
+                "EVENT_ID", "EVENT_TIMESTAMP", "USER_ID", "EVENT_TYPE", "OPERATION", "ENTITY_ID")) {
+            generateLikes(config, csv, events, timestamp, rows);
+            generateFriends(config, csv, events, timestamp, rows);
+            generateReviews(config, csv, events, timestamp, rows);
+            rows.put("EVENTS", events.getRows());
+        }
+
+        for (String[] identity : new String[][]{{"USERS", "USER_ID"}, {"FILMS", "FILM_ID"},
+                {"DIRECTORS", "DIRECTOR_ID"}, {"REVIEWS", "REVIEW_ID"}, {"EVENTS", "EVENT_ID"}}) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + identity[1] + "), 0) FROM " + identity[0],
+                    Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + identity[0] + " ALTER COLUMN " + identity[1] +
+                    " RESTART WITH " + (max + 1));
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE EVENT_IDS RESTART WITH " + (rows.get("EVENTS") + 1));
+        log.info("Сгенерированы данные {} ({}): {}, {} мс", config, csv ? "CSVREAD" : "JDBC batch", rows,
+                System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    //Число лайков пользователя - по Парето со средним likesPerUser, фильмы - по Ципфу
+    private void generateLikes(GeneratorConfig config, boolean csv, BulkLoader events, long[] timestamp,
+                               Map<String, Long> rows) {
+        double[] popularity = zipfCdf(config.getFilms(), config.getFilmPopularityExponent());
+        int maxLikes = config.getFilms() / 2;
+        try (BulkLoader likes = BulkLoader.open(shards, csv, "FILMS_LIKES", new int[]{1}, "FILM_ID", "USER_ID")) {
+            for (long userId = 1; userId <= config.getUsers(); userId++) {
+                SplittableRandom random = random(config, LIKES, userId);
+                int count = (int) Math.min(maxLikes, pareto(random, config.getLikesPerUser()));
+                Set<Long> films = new HashSet<>();
+                for (int attempt = 0; films.size() < count && attempt < count * 10; attempt++) {
+                    long filmId = 1 + sample(popularity, random.nextDouble());
+                    if (films.add(filmId)) {
+                        likes.row(filmId, userId);
+                        events.row(events.getRows() + 1, timestamp[0]++, userId, "LIKE", "ADD", filmId);
+                    }
+                }
+            }
+            rows.put("FILMS_LIKES", likes.getRows());
+        }
+    }
+
+    //Каждая пара пользователей встречается не больше одного раза: друзья выбираются среди id больше своего,
+    //а направление заявки случайное
+    private void generateFriends(GeneratorConfig config, boolean csv, BulkLoader events, long[] timestamp,
+                                 Map<String, Long> rows) {
+        try (BulkLoader friendship = BulkLoader.open(shards, csv, "FRIENDSHIP", new int[]{0, 1},
+                "USER_ID1", "USER_ID2", "CONFIRMED")) {
+            for (long userId = 1; userId < config.getUsers(); userId++) {
+                SplittableRandom random = random(config, FRIENDS, userId);
+                int count = (int) Math.min(config.getUsers() - userId, random.nextInt(config.getFriendsPerUser() + 1));
+                for (long friendId : distinct(random, count, userId + 1, config.getUsers())) {
+                    long from = random.nextBoolean() ? userId : friendId;
+                    long to = from == userId ? friendId : userId;
+                    boolean confirmed = random.nextBoolean();
+                    friendship.row(from, to, confirmed);
+                    events.row(events.getRows() + 1, timestamp[0]++, from, "FRIEND", "ADD", to);
+                    if (confirmed) {
+                        events.row(events.getRows() + 1, timestamp[0]++, to, "FRIEND", "ADD", from);
+                    }
+                }
+            }
+            rows.put("FRIENDSHIP", friendship.getRows());
+        }
+    }
+
+    //Отзывы вставляются раньше оценок из-за внешнего ключа, а полезность нужна уже в строке отзыва,
+    //поэтому оценки генерируются дважды одним и тем же генератором
+    private void generateReviews(GeneratorConfig config, boolean csv, BulkLoader events, long[] timestamp,
+                                 Map<String, Long> rows) {
+        long reviewId = 0;
+        try (BulkLoader reviews = BulkLoader.open(jdbcTemplate, csv, "REVIEWS",
+                "REVIEW_ID", "FILM_ID", "USER_ID", "DESCRIPTION", "POSITIVE", "USEFUL")) {
+            for (long filmId = 1; filmId <= config.getFilms(); filmId++) {
+                SplittableRandom random = random(config, REVIEWS, filmId);
+                int count = Math.min(config.getUsers(), random.nextInt(2 * config.getReviewsPerFilm() + 1));
+                for (long userId : distinct(random, count, 1, config.getUsers())) {
+                    reviewId++;
+                    int useful = 0;
+                    for (boolean positive : grades(config, reviewId).values()) {
+                        useful += positive ? 1 : -1;
+                    }
+                    reviews.row(reviewId, filmId, userId, word(random) + " review " + reviewId,
+                            random.nextBoolean(), useful);
+                    events.row(events.getRows() + 1, timestamp[0]++, userId, "REVIEW", "ADD", reviewId);
+                }
+            }
+            rows.put("REVIEWS", reviews.getRows());
+        }
+        try (BulkLoader grades = BulkLoader.open(shards, csv, "GRADES", new int[]{1},
+                "REVIEW_ID", "USER_ID", "POSITIVE")) {
+            for (long id = 1; id <= reviewId; id++) {
+                for (Map.Entry<Long, Boolean> grade : grades(config, id).entrySet()) {
+                    grades.row(id, grade.getKey(), grade.getValue());
+                }
+            }
+            rows.put("GRADES", grades.getRows());
+        }
+    }
+
+    private Map<Long, Boolean> grades(GeneratorConfig config, long reviewId) {
+        SplittableRandom random = random(config, GRADES, reviewId);
+        int count = Math.min(config.getUsers(), random.nextInt(2 * config.getGradesPerReview() + 1));
+        Map<Long, Boolean> grades = new LinkedHashMap<>();
+        for (long userId : distinct(random, count, 1, config.getUsers())) {
+            grades.put(userId, random.nextInt(3) != 0);
+        }
+        return grades;
+    }
+
+    private boolean isH2() {
+        return "H2".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()));
+    }
+
+    private static SplittableRandom random(GeneratorConfig config, long stream, long id) {
+        return new SplittableRandom(config.getSeed() * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + id);
+    }
+
+    //count разных значений из [from, to]
+    private static long[] distinct(SplittableRandom random, int count, long from, long to) {
+        Set<Long> values = new HashSet<>();
+        long[] result = new long[count];
+        int size = 0;
+        while (size < count) {
+            long value = random.nextLong(from, to + 1);
+            if (values.add(value)) {
+                result[size++] = value;
+            }
+        }
+        return result;
+    }
+
+    //Парето с показателем 2: среднее равно mean, у немногих пользователей лайков на порядки больше
+    private static long pareto(SplittableRandom random, int mean) {
+        double min = mean / 2.0;
+        return Math.round(min / Math.sqrt(1 - random.nextDouble()));
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double value) {
+        int i = Arrays.binarySearch(cdf, value);
+        return Math.min(cdf.length - 1, i < 0 ? -i - 1 : i);
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
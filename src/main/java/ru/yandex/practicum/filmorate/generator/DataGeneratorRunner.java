@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+
+//Заполнение базы при старте с профилем generate:
+//java -jar filmorate-exec.jar --spring.profiles.active=generate --filmorate.generator.scale=100000
+
+@Component
+@Profile("generate")
+@Slf4j
+public class DataGeneratorRunner implements CommandLineRunner {
+    private final DataGenerator generator;
+    private final LikesIndex likesIndex;
+    private final GeneratorConfig config;
+
+    @Autowired
+    public DataGeneratorRunner(DataGenerator generator, LikesIndex likesIndex,
+                               @Value("${filmorate.generator.scale:10000}") int scale,
+                               @Value("${filmorate.generator.seed:42}") long seed,
+                               @Value("${filmorate.generator.bulk:true}") boolean bulk) {
+        this.generator = generator;
+        this.likesIndex = likesIndex;
+        this.config = GeneratorConfig.ofScale(scale, seed);
+        this.config.setBulk(bulk);
+    }
+
+    @Override
+    public void run(String... args) {
+        //база сохраняется между запусками: повторный запуск с профилем generate данные не дублирует
+        if (!generator.isEmpty()) {
+            log.info("База уже заполнена, генерация пропущена");
+            return;
+        }
+        generator.generate(config);
+        //данные вставлены мимо сервисов
+        likesIndex.load();
+    }
+}
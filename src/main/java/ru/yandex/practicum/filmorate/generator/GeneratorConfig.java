@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+//Размеры генерируемых данных. Средние значения на пользователя, фильм и отзыв;
+//фактические количества распределены неравномерно и зависят только от seed.
+
+@Getter
+@Setter
+@ToString
+public class GeneratorConfig {
+    private long seed = 42;
+    private int users;
+    private int films;
+    private int directors;
+    private int likesPerUser = 20;
+    //показатель Ципфа для популярности фильмов: фильм с id k получает лайки с весом 1 / k^s
+    private double filmPopularityExponent = 1.0;
+    private int friendsPerUser = 10;
+    private int reviewsPerFilm = 2;
+    private int gradesPerReview = 5;
+    //true - CSVREAD, если база H2; false - всегда пачки JDBC
+    private boolean bulk = true;
+
+    //Масштаб - число пользователей; лайков в среднем в likesPerUser раз больше
+    public static GeneratorConfig ofScale(int users, long seed) {
+        GeneratorConfig config = new GeneratorConfig();
+        config.setSeed(seed);
+        config.setUsers(users);
+        config.setFilms(Math.max(100, users / 2));
+        config.setDirectors(Math.max(10, users / 20));
+        return config;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Оборачивает DataSource приложения в InstrumentedDataSource.
+//Слушатели берутся лениво, чтобы не создавать их раньше остальных бинов.
+
+@Component
+public class DataSourceInstrumentation implements BeanPostProcessor {
+    private final ObjectProvider<StatementListener> listenerProvider;
+    private volatile List<StatementListener> listeners;
+
+    @Autowired
+    public DataSourceInstrumentation(ObjectProvider<StatementListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource((DataSource) bean, this::getListeners);
+        }
+        return bean;
+    }
+
+    private List<StatementListener> getListeners() {
+        List<StatementListener> current = listeners;
+        if (current == null) {
+            current = listenerProvider.orderedStream().collect(Collectors.toList());
+            listeners = current;
+        }
+        return current;
+    }
+}
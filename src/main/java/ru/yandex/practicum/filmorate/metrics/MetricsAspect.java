@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Время, число вызовов и число возвращённых строк для публичных методов контроллеров, сервисов, *DbStorage
+//и *R2dbcStorage.
+//Метрики filmorate.controller, filmorate.service и filmorate.storage с тегом operation = Класс.метод
+//и outcome = success/error; для ответов-коллекций ещё filmorate.<слой>.rows.
+
+@Aspect
+@Component
+public class MetricsAspect {
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.controller.*Controller.*(..))")
+    public Object controller(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure("filmorate.controller", joinPoint);
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service.*Service.*(..))")
+    public Object service(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure("filmorate.service", joinPoint);
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.db_impl.*DbStorage.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.storage.r2dbc_impl.*R2dbcStorage.*(..))")
+    public Object storage(ProceedingJoinPoint joinPoint) throws Throwable {
+        return measure("filmorate.storage", joinPoint);
+    }
+
+    private Object measure(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getTarget().getClass().getSimpleName() + "." +
+                ((MethodSignature) joinPoint.getSignature()).getMethod().getName();
+        Meters meters = this.meters.computeIfAbsent(layer + " " + operation, key -> new Meters(layer, operation));
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            meters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        //реактивный ответ измеряется от подписки до завершения: до подписки он ничего не выполняет
+        if (result instanceof Mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return ((Mono<?>) result)
+                        .doOnSuccess(value -> record(meters, subscribed, value, null))
+                        .doOnError(e -> record(meters, subscribed, null, e));
+            });
+        }
+        if (result instanceof Flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return ((Flux<?>) result)
+                        .doOnComplete(() -> record(meters, subscribed, null, null))
+                        .doOnError(e -> record(meters, subscribed, null, e));
+            });
+        }
+        //асинхронный ответ измеряется до его готовности, а не до возврата из метода
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, e) -> record(meters, start, value, e));
+        } else {
+            record(meters, start, result, null);
+        }
+        return result;
+    }
+
+    private static void record(Meters meters, long start, Object result, Throwable error) {
+        if (error != null) {
+            meters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        meters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        int rows = rows(result);
+        if (rows >= 0) {
+            meters.rows.record(rows);
+        }
+    }
+
+    //-1 - ответ не набор строк
+    private static int rows(Object result) {
+        if (result instanceof HttpEntity) {
+            result = ((HttpEntity<?>) result).getBody();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        return -1;
+    }
+
+    private class Meters {
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+
+        Meters(String layer, String operation) {
+            success = timer(layer, operation, "success");
+            error = timer(layer, operation, "error");
+            rows = DistributionSummary.builder(layer + ".rows")
+                    .description("Число строк в ответе")
+                    .tag("operation", operation)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry);
+        }
+
+        private Timer timer(String layer, String operation, String outcome) {
+            return Timer.builder(layer)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//Считает операторы SQL и время в базе за HTTP-запрос, отдаёт их в заголовках X-Query-Count и X-Query-Time-Ms
+//и предупреждает в логе о запросах сверх порогов - обычно это N+1.
+//Ответы с телом получают заголовки из QueryCountHeaderAdvice до записи тела, остальные - здесь.
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String COUNT_HEADER = "X-Query-Count";
+    public static final String TIME_HEADER = "X-Query-Time-Ms";
+    private static final String SCOPE_ATTRIBUTE = QueryCountFilter.class.getName() + ".scope";
+
+    private final int warnCount;
+    private final long warnTimeMs;
+
+    public QueryCountFilter(@Value("${filmorate.queries.warn-count:20}") int warnCount,
+                            @Value("${filmorate.queries.warn-time-ms:500}") long warnTimeMs) {
+        this.warnCount = warnCount;
+        this.warnTimeMs = warnTimeMs;
+    }
+
+    //Асинхронный запрос считается целиком: область живёт в атрибуте запроса до последней диспетчеризации
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = (QueryCounter.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            scope = QueryCounter.start();
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        } else {
+            scope.attach();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                scope.detach();
+            } else {
+                scope.close();
+                report(request, response, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, QueryCounter.Scope scope) {
+        if (!response.isCommitted() && !response.containsHeader(COUNT_HEADER)) {
+            setHeaders(response, scope);
+        }
+        if (scope.getCount() > warnCount || scope.getMillis() > warnTimeMs) {
+            log.warn("{} {}: {} запросов к базе за {} мс", request.getMethod(), request.getRequestURI(),
+                    scope.getCount(), scope.getMillis());
+        }
+    }
+
+    private static void setHeaders(HttpServletResponse response, QueryCounter.Scope scope) {
+        response.setHeader(COUNT_HEADER, String.valueOf(scope.getCount()));
+        response.setHeader(TIME_HEADER, String.valueOf(scope.getMillis()));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+//Ставит заголовки счётчика запросов перед записью тела ответа: после неё заголовки уже могут быть отправлены
+
+@ControllerAdvice
+public class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryCounter.Scope scope = QueryCounter.current();
+        if (scope != null) {
+            response.getHeaders().set(QueryCountFilter.COUNT_HEADER, String.valueOf(scope.getCount()));
+            response.getHeaders().set(QueryCountFilter.TIME_HEADER, String.valueOf(scope.getMillis()));
+        }
+        return body;
+    }
+}
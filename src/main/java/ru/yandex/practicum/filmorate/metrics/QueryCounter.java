@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.function.Supplier;
+
+//Счётчик операторов SQL и времени в базе для текущего потока.
+//Фильтр открывает область на каждый HTTP-запрос; тесты могут открыть свою:
+//try (QueryCounter.Scope scope = QueryCounter.start()) { ... scope.getCount() ... }
+//Вложенная область при закрытии добавляет свои значения во внешнюю.
+//Работа, переданная в другой поток через propagate, считается в области вызывающего потока.
+
+public final class QueryCounter {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        scope.attach();
+        return scope;
+    }
+
+    //null - область не открыта
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    //Задача, которая в любом потоке считает запросы в текущую область
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.get();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    static void record(long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.add(1, nanos);
+        }
+    }
+
+    private static void set(Scope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final Scope parent;
+        private Scope restore;
+        private int count;
+        private long nanos;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public synchronized int getCount() {
+            return count;
+        }
+
+        public synchronized long getNanos() {
+            return nanos;
+        }
+
+        public long getMillis() {
+            return getNanos() / 1_000_000;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            detach();
+            if (parent != null) {
+                parent.add(getCount(), getNanos());
+            }
+        }
+
+        //Делает область текущей в этом потоке, например при повторной диспетчеризации асинхронного запроса
+        void attach() {
+            restore = CURRENT.get();
+            CURRENT.set(this);
+        }
+
+        //Снимает область с потока, не закрывая её
+        void detach() {
+            set(restore);
+            restore = null;
+        }
+
+        //запросы асинхронной задачи могут идти из другого потока
+        private synchronized void add(int count, long nanos) {
+            this.count += count;
+            this.nanos += nanos;
+        }
+    }
+}
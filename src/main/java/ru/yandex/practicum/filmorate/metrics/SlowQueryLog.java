@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//Журнал медленных запросов. Операторы дольше порога группируются по отпечатку SQL (литералы и списки IN
+//заменены на ?), для каждого хранятся счётчики и кольцевой буфер последних выполнений с параметрами.
+//Для нового худшего выполнения отпечатка в фоне снимается план H2: EXPLAIN ANALYZE для SELECT
+//и EXPLAIN для изменяющих операторов, чтобы не выполнять их повторно.
+
+@Component
+@Slf4j
+public class SlowQueryLog implements StatementListener {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAM_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final int MAX_PARAM_LENGTH = 200;
+
+    private final DataSource dataSource;
+    private final long thresholdNanos;
+    private final int samples;
+    private final int maxFingerprints;
+    private final Map<String, Offender> offenders = new ConcurrentHashMap<>();
+    //один поток и короткая очередь: планы при перегрузке пропускаются, а не копятся
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), runnable -> {
+        Thread thread = new Thread(runnable, "slow-query-explain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public SlowQueryLog(DataSource dataSource,
+                        @Value("${filmorate.queries.slow-ms:100}") long thresholdMs,
+                        @Value("${filmorate.queries.slow-samples:10}") int samples,
+                        @Value("${filmorate.queries.slow-fingerprints:100}") int maxFingerprints) {
+        //планы снимаются мимо обёртки, иначе сам EXPLAIN попал бы в журнал
+        this.dataSource = dataSource instanceof InstrumentedDataSource
+                ? ((InstrumentedDataSource) dataSource).getTargetDataSource() : dataSource;
+        this.thresholdNanos = thresholdMs < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.samples = samples;
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    @Override
+    public void executed(String sql, List<Object> params, long nanos) {
+        if (nanos < thresholdNanos || sql == null) {
+            return;
+        }
+        String fingerprint = fingerprint(sql);
+        Offender offender = offenders.get(fingerprint);
+        if (offender == null) {
+            if (offenders.size() >= maxFingerprints && !evictFasterThan(nanos)) {
+                return;
+            }
+            offender = offenders.computeIfAbsent(fingerprint, Offender::new);
+        }
+        Sample sample = new Sample(sql, params, nanos);
+        if (offender.add(sample, samples)) {
+            log.warn("Медленный запрос {} мс: {}", sample.getMillis(), fingerprint);
+            explain(sample, params);
+        }
+    }
+
+    //Отпечатки от худшего к лучшему по максимальному времени
+    public List<Offender> getOffenders() {
+        return offenders.values().stream()
+                .sorted(Comparator.comparingLong(Offender::getMaxNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        offenders.clear();
+    }
+
+    static String fingerprint(String sql) {
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = SPACES.matcher(result).replaceAll(" ").trim();
+        return PARAM_LIST.matcher(result).replaceAll("(?...)");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    //Освобождает место под новый отпечаток, если самый быстрый из хранимых быстрее nanos
+    private boolean evictFasterThan(long nanos) {
+        Offender fastest = null;
+        for (Offender offender : offenders.values()) {
+            if (fastest == null || offender.getMaxNanos() < fastest.getMaxNanos()) {
+                fastest = offender;
+            }
+        }
+        return fastest != null && fastest.getMaxNanos() < nanos && offenders.remove(fastest.getFingerprint(), fastest);
+    }
+
+    private void explain(Sample sample, List<Object> params) {
+        String verb = sample.getSql().stripLeading().split("\\s", 2)[0].toUpperCase();
+        String prefix;
+        if (verb.equals("SELECT") || verb.equals("WITH")) {
+            prefix = "EXPLAIN ANALYZE ";
+        } else if (verb.equals("INSERT") || verb.equals("UPDATE") || verb.equals("DELETE") || verb.equals("MERGE")) {
+            prefix = "EXPLAIN ";
+        } else {
+            return;
+        }
+        List<Object> values = new ArrayList<>(params);
+        try {
+            explainExecutor.execute(() -> sample.plan = plan(prefix + sample.getSql(), values));
+        } catch (RejectedExecutionException e) {
+            log.debug("План запроса пропущен: очередь занята");
+        }
+    }
+
+    private String plan(String sql, List<Object> values) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString().trim();
+        } catch (SQLException e) {
+            return "План недоступен: " + e.getMessage();
+        }
+    }
+
+    public static class Offender {
+        private final String fingerprint;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private Sample worst;
+        //кольцевой буфер последних медленных выполнений
+        private final List<Sample> recent = new ArrayList<>();
+        private int next;
+
+        private Offender(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        //true, если выполнение стало худшим для отпечатка
+        private synchronized boolean add(Sample sample, int capacity) {
+            count++;
+            totalNanos += sample.nanos;
+            if (recent.size() < capacity) {
+                recent.add(sample);
+            } else if (capacity > 0) {
+                recent.set(next, sample);
+                next = (next + 1) % capacity;
+            }
+            if (sample.nanos <= maxNanos) {
+                return false;
+            }
+            maxNanos = sample.nanos;
+            worst = sample;
+            return true;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+
+        public synchronized long getAvgMillis() {
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / count);
+        }
+
+        public synchronized Sample getWorst() {
+            return worst;
+        }
+
+        //от новых к старым
+        public synchronized List<Sample> getRecent() {
+            List<Sample> result = new ArrayList<>(recent.size());
+            for (int i = 1; i <= recent.size(); i++) {
+                result.add(recent.get(Math.floorMod(next - i, recent.size())));
+            }
+            return result;
+        }
+
+        synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+    @Getter
+    public static class Sample {
+        private final String sql;
+        private final List<String> params;
+        private final long nanos;
+        private final Instant time = Instant.now();
+        private volatile String plan;
+
+        private Sample(String sql, List<Object> params, long nanos) {
+            this.sql = sql;
+            this.params = params.stream().map(Sample::format).collect(Collectors.toList());
+            this.nanos = nanos;
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        private static String format(Object value) {
+            String text = String.valueOf(value);
+            return text.length() > MAX_PARAM_LENGTH ? text.substring(0, MAX_PARAM_LENGTH) + "..." : text;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.List;
+
+//Получает каждый выполненный через DataSource приложения оператор SQL.
+//Вызывается в потоке, выполнившем запрос, поэтому должен быть быстрым;
+//params - привязанные параметры (для пакета - последней строки), действительны только на время вызова.
+
+public interface StatementListener {
+    void executed(String sql, List<Object> params, long nanos);
+}
@@ -22,6 +22,8 @@ public class Review extends AbstractEntity {
     private Boolean isPositive;
     private Long userId;
     private Long filmId;
+    //Поддерживается в REVIEWS.USEFUL при каждом изменении оценок
+    private int useful;
     @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
     private final Map<Long, Boolean> grades = new HashMap<>();
 
@@ -41,18 +43,6 @@ public class Review extends AbstractEntity {
         isPositive = positive;
     }
 
-    public int getUseful() {
-        int useful = 0;
-        for (var positive : grades.values()) {
-            if (positive) {
-                useful++;
-            } else {
-                useful--;
-            }
-        }
-        return useful;
-    }
-
     public void addGrade(Long userId, boolean positive) {
         grades.put(userId, positive);
     }
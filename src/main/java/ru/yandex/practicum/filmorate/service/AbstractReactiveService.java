@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.InvalidIdException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+//Проверки и сообщения об ошибках те же, что в AbstractService, но ошибки возвращаются сигналом Mono
+
+@Slf4j
+public abstract class AbstractReactiveService {
+    private final static String MSG_ERR_ID = "Некорректный id ";
+    private final static String MSG_ERR_NOT_FOUND = "Не найдено по id ";
+
+    protected Mono<Void> validateId(Long id) {
+        return Mono.fromRunnable(() -> {
+            if (id == null) {
+                log.warn(MSG_ERR_ID + id);
+                throw new InvalidIdException(MSG_ERR_ID + id);
+            }
+            if (id < 0) {
+                log.warn(MSG_ERR_NOT_FOUND + id);
+                throw new NotFoundException(MSG_ERR_NOT_FOUND + id);
+            }
+        });
+    }
+
+    protected <T> Mono<T> notFound(Long id) {
+        return Mono.defer(() -> {
+            log.warn(MSG_ERR_NOT_FOUND + id);
+            return Mono.error(new NotFoundException(MSG_ERR_NOT_FOUND + id));
+        });
+    }
+}
@@ -30,7 +30,9 @@ public abstract class AbstractService <E extends AbstractEntity, T extends Commo
     @Override
     public E create(E data) {
         validationBeforeCreate(data);
-        return storage.create(data);
+        E newData = storage.create(data);
+        changed(newData.getId());
+        return newData;
     }
 
     @Override
@@ -41,7 +43,7 @@ public abstract class AbstractService <E extends AbstractEntity, T extends Commo
             log.warn(MSG_ERR_NOT_FOUND + data.getId());
             throw new NotFoundException(MSG_ERR_NOT_FOUND + data.getId());
         }
-
+        changed(newData.getId());
         return newData;
     }
 
@@ -86,5 +88,10 @@ public abstract class AbstractService <E extends AbstractEntity, T extends Commo
             throw new NotFoundException(MSG_ERR_NOT_FOUND + id);
         }
         storage.delete(id);
+        changed(id);
+    }
+
+    //Вызывается после успешной записи; сервисы справочников повышают здесь версию для ETag
+    protected void changed(Long id) {
     }
 }
\ No newline at end of file
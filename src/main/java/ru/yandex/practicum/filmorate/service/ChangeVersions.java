@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Счётчики изменений справочников и фильмов для ETag. Все версии берутся из одной возрастающей
+//последовательности, поэтому версия набора данных - максимум версий его частей.
+//Версия повышается после записи в базу, а читатели берут её до чтения: ответ может оказаться новее своего
+//тега, но не старее. Внутри транзакции версия повышается после её фиксации. Эпоха меняется при каждом запуске, чтобы теги прошлого запуска не совпали.
+
+@Component
+public class ChangeVersions implements LikesIndex.Listener {
+    public enum Table {
+        GENRES, RATINGS, DIRECTORS, FILMS
+    }
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Table, AtomicLong> tables = new EnumMap<>(Table.class);
+    private final Map<Long, Long> films = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ChangeVersions(LikesIndex likesIndex) {
+        for (Table table : Table.values()) {
+            tables.put(table, new AtomicLong());
+        }
+        likesIndex.addListener(this);
+    }
+
+    public void changed(Table table) {
+        afterCommit(() -> tables.get(table).set(sequence.incrementAndGet()));
+    }
+
+    public void filmChanged(long filmId) {
+        afterCommit(() -> films.put(filmId, sequence.incrementAndGet()));
+    }
+
+    //Последняя выданная версия: всё, что изменилось не позже неё, уже записано в базу
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    public long getVersion(Table table) {
+        return tables.get(table).get();
+    }
+
+    //Фильм в ответе включает рейтинг, жанры, режиссёров и лайки
+    public long getFilmVersion(long filmId) {
+        long version = films.getOrDefault(filmId, 0L);
+        for (Table table : Table.values()) {
+            version = Math.max(version, getVersion(table));
+        }
+        return version;
+    }
+
+    public String etag(Table table) {
+        return tag(table.name().toLowerCase(), getVersion(table));
+    }
+
+    public String filmEtag(long filmId) {
+        return tag("film", getFilmVersion(filmId));
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId) {
+        filmChanged(filmId);
+    }
+
+    //Лайки удалённого пользователя могли быть у любых фильмов
+    @Override
+    public void userRemoved(long userId) {
+        changed(Table.FILMS);
+    }
+
+    @Override
+    public void reloaded() {
+        for (Table table : Table.values()) {
+            changed(table);
+        }
+    }
+
+    //До фиксации читатели видят старые данные и не должны получить для них новую версию
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private String tag(String name, long version) {
+        return "W/\"" + name + "-" + epoch + "-" + version + "\"";
+    }
+}
@@ -7,13 +7,20 @@ import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 
 @Service
 public class DirectorService extends AbstractService<Director, DirectorStorage> {
+    private final ChangeVersions versions;
 
     @Autowired
-    public DirectorService(DirectorStorage storage) {
+    public DirectorService(DirectorStorage storage, ChangeVersions versions) {
         super(storage);
+        this.versions = versions;
     }
 
     @Override
     public void validationBeforeCreate(Director director) {
     }
+
+    @Override
+    protected void changed(Long id) {
+        versions.changed(ChangeVersions.Table.DIRECTORS);
+    }
 }
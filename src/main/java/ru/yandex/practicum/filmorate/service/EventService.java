@@ -24,14 +24,18 @@ public class EventService {
     }
 
     private Event createEvent(Long userID,  EventType eventType, Operation operation, Long entityId) {
+        return eventStorage.createEvent(newEvent(userID, eventType, operation, entityId));
+    }
+
+    //Общий для блокирующего и реактивного режима
+    static Event newEvent(Long userID,  EventType eventType, Operation operation, Long entityId) {
         Event event = new Event();
         event.setTimestamp(Instant.now().toEpochMilli());
         event.setEventType(eventType);
         event.setOperation(operation);
         event.setUserId(userID);
         event.setEntityId(entityId);
-
-        return eventStorage.createEvent(event);
+        return event;
     }
 
     public Event createAddLikeEvent(Long userID, Long filmId) {
@@ -3,19 +3,26 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.InvalidFilmException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.recommendation.ItemSimilarityModel;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -28,31 +35,43 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
     private final UserService userService;
     private final GenreStorage genreStorage;
     private final DirectorStorage directorStorage;
+    private final LikesIndex likesIndex;
+    private final ItemSimilarityModel similarityModel;
+    private final ChangeVersions versions;
 
     @Autowired
     public FilmService(FilmStorage storage, EventService eventService, UserService userService,
-                       GenreStorage genreStorage, DirectorStorage directorStorage) {
+                       GenreStorage genreStorage, DirectorStorage directorStorage, LikesIndex likesIndex,
+                       ItemSimilarityModel similarityModel, ChangeVersions versions) {
         super(storage);
         this.eventService = eventService;
         this.userService = userService;
         this.genreStorage = genreStorage;
         this.directorStorage = directorStorage;
+        this.likesIndex = likesIndex;
+        this.similarityModel = similarityModel;
+        this.versions = versions;
     }
 
+    //Фильм, жанры и режиссёры записываются одной транзакцией: одна фиксация и никаких полузаписанных фильмов
     @Override
+    @Transactional
     public Film create(Film film) {
         film = super.create(film);
         storage.createGenresByFilm(film);
         storage.createDirectorsByFilm(film);
+        versions.filmChanged(film.getId());
         log.info("Добавлен фильма {}", film);
         return film;
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
         film = super.update(film);
         storage.updateGenresByFilm(film);
         storage.updateDirectorsByFilm(film);
+        versions.filmChanged(film.getId());
         log.info("Обновлён фильм {}", film);
         return film;
     }
@@ -60,7 +79,7 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
     @Override
     public List<Film> findAll() {
         List<Film> films = super.findAll();
-        films.forEach(this::loadData);
+        loadData(films);
         return films;
     }
 
@@ -71,12 +90,38 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
         return film;
     }
 
+    @Override
+    public void delete(Long id) {
+        super.delete(id);
+        likesIndex.removeFilm(id);
+        versions.filmChanged(id);
+    }
+
+    //Фильмы с жанрами, режиссёрами и лайками за постоянное число запросов
+    public List<Film> findAllById(Collection<Long> ids) {
+        List<Film> films = storage.findAllById(ids);
+        loadData(films);
+        return films;
+    }
+
     private void loadData(Film film) {
         film.setGenres(genreStorage.getGenresByFilm(film));
         film.setDirectors(directorStorage.getDirectorsByFilm(film));
         storage.loadLikes(film);
     }
 
+    private void loadData(List<Film> films) {
+        List<Long> ids = new ArrayList<>();
+        films.forEach(film -> ids.add(film.getId()));
+        var genres = genreStorage.getGenresByFilms(ids);
+        var directors = directorStorage.getDirectorsByFilms(ids);
+        for (Film film : films) {
+            film.setGenres(genres.getOrDefault(film.getId(), Set.of()));
+            film.setDirectors(directors.getOrDefault(film.getId(), Set.of()));
+        }
+        storage.loadLikes(films);
+    }
+
     //Шаблонный метод
     @Override
     public void validationBeforeCreate(Film film) {
@@ -123,8 +168,8 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
         Film film = this.findById(id);
         User user = userService.findById(userId);
         validateLike(film, user);
-        film.addLike(userId);
-        storage.saveLikes(film);
+        storage.addLike(id, userId);
+        likesIndex.addLike(id, userId);
         eventService.createAddLikeEvent(userId, id);
     }
 
@@ -132,8 +177,8 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
         Film film = this.findById(id);
         User user = userService.findById(userId);
         validateLike(film, user);
-        film.removeLike(userId);
-        storage.saveLikes(film);
+        storage.removeLike(id, userId);
+        likesIndex.removeLike(id, userId);
         eventService.createRemoveLikeEvent(userId, id);
     }
 
@@ -144,15 +189,15 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
         } else if (genreId == 0 && year != 0) {
             //селект по всем жанрам и по конкретному году
             films = storage.findAllByYear(year);
-            films.forEach(this::loadData);
+            loadData(films);
         } else if (genreId != 0 && year == 0) {
             //селект по конкретному жанру и по всем годам
             films = storage.findAllByGenre(genreId);
-            films.forEach(this::loadData);
+            loadData(films);
         } else {
             //селект по конкретному жанру и по конкрутному году
             films = storage.findAllByGenreAndYear(genreId, year);
-            films.forEach(this::loadData);
+            loadData(films);
         }
         films.sort(Comparator.comparing(Film::getLikesCount).reversed());
         if (count > films.size()) {
@@ -162,10 +207,8 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
     }
 
     public List<Film> commonMovies(Long userId, Long friendId) {
-         List <Film> commonMovies = storage.commonMovies(userId, friendId);
-        for (var film : commonMovies) {
-            storage.loadLikes(film);
-        }
+        List<Film> commonMovies = storage.commonMovies(userId, friendId);
+        loadData(commonMovies);
         commonMovies.sort(Comparator.comparing(Film::getLikesCount).reversed());
         return commonMovies;
     }
@@ -173,13 +216,40 @@ public class FilmService extends AbstractService<Film, FilmStorage> {
     public List<Film> findFilmsByDirector(Long directorId, String sortBy) {
         List<Film> films = storage.findFilmsByDirector(directorId, sortBy);
         if (films.isEmpty()) throw  new NotFoundException("");
-        films.forEach(this::loadData);
+        loadData(films);
         return films;
     }
 
+    //Похожие фильмы по убыванию сходства
+    public List<Film> findSimilar(Long id, int count) {
+        validateId(id);
+        if (storage.findById(id) == null) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        ItemSimilarityModel.Neighbours neighbours = similarityModel.getNeighbours(id);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < neighbours.size() && i < count; i++) {
+            ids.add(neighbours.getFilmId(i));
+        }
+        return findAllByIdInOrder(ids);
+    }
+
+    //Фильмы в порядке ids (findAllById сортирует по id); удалённые фильмы пропускаются
+    public List<Film> findAllByIdInOrder(List<Long> ids) {
+        Map<Long, Film> films = new HashMap<>();
+        findAllById(ids).forEach(film -> films.put(film.getId(), film));
+        List<Film> result = new ArrayList<>();
+        for (Long filmId : ids) {
+            if (films.containsKey(filmId)) {
+                result.add(films.get(filmId));
+            }
+        }
+        return result;
+    }
+
     public List<Film> searchBy(String queryString, String searchBy) {
         List<Film> films = storage.searchBy(queryString, searchBy);
-        films.forEach(this::loadData);
+        loadData(films);
         return films;
     }
 
@@ -7,14 +7,21 @@ import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
 @Service
 public class GenreService extends AbstractService<Genre, GenreStorage>{
+    private final ChangeVersions versions;
 
     @Autowired
-    public GenreService(GenreStorage storage) {
+    public GenreService(GenreStorage storage, ChangeVersions versions) {
         super(storage);
+        this.versions = versions;
     }
 
     @Override
     public void validationBeforeCreate(Genre data) {
 
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void changed(Long id) {
+        versions.changed(ChangeVersions.Table.GENRES);
+    }
+}
@@ -7,14 +7,21 @@ import ru.yandex.practicum.filmorate.storage.RatingStorage;
 
 @Service
 public class RatingService  extends AbstractService<Rating, RatingStorage>{
+    private final ChangeVersions versions;
 
     @Autowired
-    public RatingService(RatingStorage storage) {
+    public RatingService(RatingStorage storage, ChangeVersions versions) {
         super(storage);
+        this.versions = versions;
     }
 
     @Override
     public void validationBeforeCreate(Rating data) {
 
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void changed(Long id) {
+        versions.changed(ChangeVersions.Table.RATINGS);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.enums.EventType;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.ReactiveEventStorage;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEventService {
+    private final ReactiveEventStorage eventStorage;
+
+    @Autowired
+    public ReactiveEventService(ReactiveEventStorage eventStorage) {
+        this.eventStorage = eventStorage;
+    }
+
+    public Flux<Event> findEventsByUserId(Long id) {
+        return eventStorage.findEventsByUserID(id);
+    }
+
+    public Mono<Event> createAddLikeEvent(Long userID, Long filmId) {
+        return Mono.defer(() -> eventStorage.createEvent(
+                EventService.newEvent(userID, EventType.LIKE, Operation.ADD, filmId)));
+    }
+
+    public Mono<Event> createRemoveLikeEvent(Long userID, Long filmId) {
+        return Mono.defer(() -> eventStorage.createEvent(
+                EventService.newEvent(userID, EventType.LIKE, Operation.REMOVE, filmId)));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+
+//Лайки в реактивном режиме: индекс лайков и версии ETag обновляются так же, как в FilmService,
+//но запись в FILMS_LIKES точечная, без перезаписи всех лайков фильма
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmService extends AbstractReactiveService {
+    private final ReactiveFilmStorage storage;
+    private final ReactiveUserService userService;
+    private final ReactiveEventService eventService;
+    private final LikesIndex likesIndex;
+
+    @Autowired
+    public ReactiveFilmService(ReactiveFilmStorage storage, ReactiveUserService userService,
+                               ReactiveEventService eventService, LikesIndex likesIndex) {
+        this.storage = storage;
+        this.userService = userService;
+        this.eventService = eventService;
+        this.likesIndex = likesIndex;
+    }
+
+    public Mono<Film> findById(Long id) {
+        return validateId(id)
+                .then(storage.findById(id))
+                .switchIfEmpty(notFound(id));
+    }
+
+    public Mono<Void> addLike(Long id, Long userId) {
+        return validateLike(id, userId)
+                .then(storage.addLike(id, userId))
+                .then(Mono.fromRunnable(() -> likesIndex.addLike(id, userId)))
+                .then(eventService.createAddLikeEvent(userId, id))
+                .then();
+    }
+
+    public Mono<Void> removeLike(Long id, Long userId) {
+        return validateLike(id, userId)
+                .then(storage.removeLike(id, userId))
+                .then(Mono.fromRunnable(() -> likesIndex.removeLike(id, userId)))
+                .then(eventService.createRemoveLikeEvent(userId, id))
+                .then();
+    }
+
+    //Фильм проверяется раньше пользователя, как в FilmService
+    private Mono<Void> validateLike(Long id, Long userId) {
+        return validateId(id)
+                .then(validateId(userId))
+                .then(Mono.zip(storage.contains(id), userService.contains(userId)))
+                .<Void>flatMap(found -> {
+                    if (!found.getT1()) {
+                        return notFound(id);
+                    }
+                    if (!found.getT2()) {
+                        return notFound(userId);
+                    }
+                    return Mono.empty();
+                });
+    }
+}
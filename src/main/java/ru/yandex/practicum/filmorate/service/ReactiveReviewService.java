@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.service.review.ReviewGradeCounters;
+import ru.yandex.practicum.filmorate.storage.ReactiveReviewStorage;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Чтение отзывов в реактивном режиме. Оценки, как и в ReviewService, берутся из живых счётчиков,
+//а для отзывов, которых нет в памяти, - из GRADES
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewService extends AbstractReactiveService {
+    private final ReactiveReviewStorage storage;
+    private final ReviewGradeCounters gradeCounters;
+
+    @Autowired
+    public ReactiveReviewService(ReactiveReviewStorage storage, ReviewGradeCounters gradeCounters) {
+        this.storage = storage;
+        this.gradeCounters = gradeCounters;
+    }
+
+    public Mono<Review> findById(Long id) {
+        return validateId(id)
+                .then(storage.findById(id))
+                .switchIfEmpty(notFound(id))
+                .flatMap(review -> loadGrades(List.of(review)).thenReturn(review));
+    }
+
+    //Тот же порядок по живым счётчикам, что и в ReviewService.findAllByFilm
+    public Mono<List<Review>> findAllByFilm(Long filmId, Integer count) {
+        return Mono.defer(() -> {
+            Map<Long, Integer> live = gradeCounters.getUseful(filmId);
+            if (live.isEmpty()) {
+                return storage.findAllByFilm(filmId, count).collectList();
+            }
+            Map<Long, Review> candidates = new LinkedHashMap<>();
+            return storage.findAllByFilm(filmId, count + live.size())
+                    .doOnNext(review -> candidates.put(review.getId(), review))
+                    .then(Mono.defer(() -> {
+                        List<Long> missing = live.keySet().stream()
+                                .filter(id -> !candidates.containsKey(id))
+                                .collect(Collectors.toList());
+                        return storage.findAllById(missing)
+                                .doOnNext(review -> candidates.put(review.getId(), review))
+                                .then();
+                    }))
+                    .then(Mono.fromSupplier(() -> {
+                        candidates.values().forEach(review ->
+                                review.setUseful(live.getOrDefault(review.getId(), review.getUseful())));
+                        return candidates.values().stream()
+                                .sorted(Comparator.comparingInt(Review::getUseful).reversed())
+                                .limit(count)
+                                .collect(Collectors.toList());
+                    }));
+        }).flatMap(reviews -> loadGrades(reviews).thenReturn(reviews));
+    }
+
+    private Mono<Void> loadGrades(List<Review> reviews) {
+        return Mono.defer(() -> storage.loadGrades(reviews.stream()
+                .filter(review -> !gradeCounters.fill(review))
+                .collect(Collectors.toList())));
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService extends AbstractReactiveService {
+    private final ReactiveUserStorage storage;
+
+    @Autowired
+    public ReactiveUserService(ReactiveUserStorage storage) {
+        this.storage = storage;
+    }
+
+    public Mono<User> findById(Long id) {
+        return validateId(id)
+                .then(storage.findById(id))
+                .switchIfEmpty(notFound(id));
+    }
+
+    public Mono<Boolean> contains(Long id) {
+        return storage.contains(id);
+    }
+}
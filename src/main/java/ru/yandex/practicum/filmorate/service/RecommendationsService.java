@@ -1,58 +1,76 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.recommendation.ItemSimilarityModel;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationEngine;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationStore;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Service
+@Slf4j
 public class RecommendationsService {
     private final FilmService filmService;
-    private final UserService userService;
+    private final RecommendationEngine engine;
+    private final RecommendationStore store;
+    private final int topN;
+    private final int refreshBatch;
+    private final Timer refreshTimer;
+    private final Counter onDemandCounter;
 
     @Autowired
-    public RecommendationsService(FilmService filmService, UserService userService) {
+    public RecommendationsService(FilmService filmService, RecommendationEngine engine, RecommendationStore store,
+                                  MeterRegistry registry,
+                                  @Value("${filmorate.recommendations.top-n:100}") int topN,
+                                  @Value("${filmorate.recommendations.refresh-batch:1000}") int refreshBatch) {
         this.filmService = filmService;
-        this.userService = userService;
+        this.engine = engine;
+        this.store = store;
+        this.topN = topN;
+        this.refreshBatch = refreshBatch;
+        refreshTimer = registry.timer("filmorate.recommendations.refresh");
+        onDemandCounter = registry.counter("filmorate.recommendations.on-demand");
     }
 
-    public Set<Film> getRecommendedFilms(Long userId) {
-        Map<Long, List<Long>> filmsOfUsers = new HashMap<>();
-
-        //получение списка пользователей
-        List<User> users = userService.findAll();
-
-        //получение всех фильмов лайкнутых пользователем
-        for (User user : users) {
-            filmsOfUsers.put(user.getId(), userService.getUsersFilms(user.getId()));
+    //Фильмы в порядке ранжирования движка
+    public List<Film> getRecommendedFilms(Long userId) {
+        RecommendationStore.Entry entry = store.get(userId);
+        if (entry == null) {
+            //в хранилище ещё нет записи - считаем по запросу
+            onDemandCounter.increment();
+            entry = store.refresh(userId, this::compute);
         }
+        return filmService.findAllByIdInOrder(entry.getFilmIds());
+    }
 
-        long maxMatches = 0;
-        Set<Long> similarity = new HashSet<>(); //хранит id пользователей с наибольшими совпадениями по лайкам
-        for (Long id : filmsOfUsers.keySet()) {
-            if (id == userId) continue;
-
-            long numberOfMatches = filmsOfUsers.get(id).stream()
-                    .filter(filmId -> filmsOfUsers.get(userId).contains(filmId)).count();
-
-            if (numberOfMatches == maxMatches & numberOfMatches != 0) {
-                similarity.add(id);
-            }
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.refresh-delay-ms:1000}",
+            initialDelayString = "${filmorate.recommendations.refresh-delay-ms:1000}")
+    public void refreshDirtyUsers() {
+        List<Long> users = store.getDirtyUsers(refreshBatch);
+        if (users.isEmpty()) {
+            return;
+        }
+        refreshTimer.record(() -> users.forEach(userId -> store.refresh(userId, this::compute)));
+        log.debug("Пересчитаны рекомендации для {} пользователей", users.size());
+    }
 
-            if (numberOfMatches > maxMatches) {
-                maxMatches = numberOfMatches;
-                similarity = new HashSet<>();
-                similarity.add(id);
-            }
+    @EventListener
+    public void onSimilarityModelRebuilt(ItemSimilarityModel.RebuiltEvent event) {
+        if (engine.usesSimilarityModel()) {
+            store.markAllDirty();
         }
+    }
 
-        if (maxMatches == 0) return new HashSet<>();
-        else return similarity.stream().flatMap(idUser -> userService.getUsersFilms(idUser).stream())
-                .filter(filmId -> !filmsOfUsers.get(userId).contains(filmId))
-                .map(filmId -> filmService.findById(filmId))
-                .collect(Collectors.toSet());
+    private RecommendationStore.Entry compute(long userId) {
+        return engine.recommend(userId, topN);
     }
 }
@@ -3,15 +3,18 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.service.review.ReviewGradeCounters;
 import ru.yandex.practicum.filmorate.storage.ReviewStorage;
 
 import javax.validation.ValidationException;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,15 +22,20 @@ import java.util.stream.Collectors;
 public class ReviewService extends AbstractService<Review, ReviewStorage> {
     private final UserService userService;
     private final EventService eventService;
+    private final ReviewGradeCounters gradeCounters;
 
     @Autowired
-    public ReviewService(ReviewStorage storage, UserService userService, EventService eventService) {
+    public ReviewService(ReviewStorage storage, UserService userService, EventService eventService,
+                         ReviewGradeCounters gradeCounters) {
         super(storage);
         this.userService = userService;
         this.eventService = eventService;
+        this.gradeCounters = gradeCounters;
     }
 
+    //Отзыв и событие ленты записываются одной транзакцией
     @Override
+    @Transactional
     public Review create(Review review) {
         review = super.create(review);
         eventService.createReviewEvent(review.getUserId(), Operation.ADD, review.getReviewId());
@@ -35,6 +43,7 @@ public class ReviewService extends AbstractService<Review, ReviewStorage> {
     }
 
     @Override
+    @Transactional
     public Review update(Review review) {
         Review oldReview = findById(review.getReviewId());
         eventService.createReviewEvent(oldReview.getUserId(), Operation.UPDATE, review.getReviewId());
@@ -43,24 +52,28 @@ public class ReviewService extends AbstractService<Review, ReviewStorage> {
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         Review review = super.findById(id);
         eventService.createReviewEvent(review.getUserId(), Operation.REMOVE, review.getReviewId());
         super.delete(id);
+        gradeCounters.removeReview(id);
     }
 
     @Override
     public List<Review> findAll() {
         List<Review> reviews = super.findAll();
-        reviews.forEach(storage::loadGrades);
-        reviews.sort(Comparator.comparing(Review::getUseful).reversed());
+        loadGrades(reviews);
+        reviews.sort(Comparator.comparingInt(Review::getUseful).reversed());
         return reviews;
     }
 
     @Override
     public Review findById(Long id) {
         Review review = super.findById(id);
-        storage.loadGrades(review);
+        if (!gradeCounters.fill(review)) {
+            storage.loadGrades(review);
+        }
         return review;
     }
 
@@ -89,47 +102,58 @@ public class ReviewService extends AbstractService<Review, ReviewStorage> {
         delGrade(id, userId);
     }
 
+    //Существование отзыва проверяют счётчики при его загрузке в память
     private void addGrade(Long id, Long userId, boolean positive) {
-        Review review = this.findById(id);
-        User user = userService.findById(userId);
-        validateForGrade(review, user);
-        review.addGrade(userId, positive);
-        storage.saveGrades(review);
+        validateForGrade(id, userId);
+        gradeCounters.setGrade(id, userId, positive);
     }
 
     private void delGrade(Long id, Long userId) {
-        Review review = this.findById(id);
-        User user = userService.findById(userId);
-        validateForGrade(review, user);
-        review.delGrade(userId);
-        storage.saveGrades(review);
+        validateForGrade(id, userId);
+        if (!gradeCounters.setGrade(id, userId, null)) {
+            log.warn("Оценка не существует");
+        }
     }
 
-    private void validateForGrade(Review review, User user) {
-        if (review == null) {
-            String message = "Отзыв не найден";
-            log.warn(message);
-            throw new NotFoundException(message);
-        }
-        if (user == null) {
+    private void validateForGrade(Long id, Long userId) {
+        validateId(id);
+        validateId(userId);
+        if (!userService.contains(userId)) {
             String message = ("Пользователь не найден");
             log.warn(message);
             throw new NotFoundException(message);
         }
     }
 
+    //Порядок по живым счётчикам: отзывы с несброшенными оценками могут стоять в базе не на своём месте,
+    //поэтому к первым count + live.size() строкам базы добавляются они сами
     public List<Review> findAllByFilm(Long filmId, Integer count) {
-        List<Review> reviews;
-        if (filmId == null) {
-            reviews = storage.findAll();
-        } else {
-            reviews = storage.findAllByFilm(filmId);
+        Map<Long, Integer> live = gradeCounters.getUseful(filmId);
+        if (live.isEmpty()) {
+            List<Review> reviews = storage.findAllByFilm(filmId, count);
+            loadGrades(reviews);
+            return reviews;
         }
-        reviews.forEach(storage::loadGrades);
+        Map<Long, Review> candidates = new LinkedHashMap<>();
+        storage.findAllByFilm(filmId, count + live.size()).forEach(review -> candidates.put(review.getId(), review));
+        List<Long> missing = live.keySet().stream()
+                .filter(id -> !candidates.containsKey(id))
+                .collect(Collectors.toList());
+        storage.findAllById(missing).forEach(review -> candidates.put(review.getId(), review));
+        candidates.values().forEach(review -> review.setUseful(live.getOrDefault(review.getId(), review.getUseful())));
 
-        return reviews.stream()
-                .sorted(Comparator.comparing(Review::getUseful).reversed())
+        List<Review> reviews = candidates.values().stream()
+                .sorted(Comparator.comparingInt(Review::getUseful).reversed())
                 .limit(count)
                 .collect(Collectors.toList());
+        loadGrades(reviews);
+        return reviews;
+    }
+
+    private void loadGrades(List<Review> reviews) {
+        List<Review> stored = reviews.stream()
+                .filter(review -> !gradeCounters.fill(review))
+                .collect(Collectors.toList());
+        storage.loadGrades(stored);
     }
 }
\ No newline at end of file
@@ -3,9 +3,12 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+import ru.yandex.practicum.filmorate.service.review.ReviewGradeCounters;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.ArrayList;
@@ -15,11 +18,16 @@ import java.util.List;
 @Slf4j
 public class UserService extends AbstractService<User, UserStorage> {
     private final EventService eventService;
+    private final LikesIndex likesIndex;
+    private final ReviewGradeCounters gradeCounters;
 
     @Autowired
-    public UserService(UserStorage storage, EventService eventService) {
+    public UserService(UserStorage storage, EventService eventService, LikesIndex likesIndex,
+                       ReviewGradeCounters gradeCounters) {
         super(storage);
         this.eventService = eventService;
+        this.likesIndex = likesIndex;
+        this.gradeCounters = gradeCounters;
     }
 
     @Override
@@ -48,6 +56,13 @@ public class UserService extends AbstractService<User, UserStorage> {
         return user;
     }
 
+    @Override
+    public void delete(Long id) {
+        super.delete(id);
+        likesIndex.removeUser(id);
+        gradeCounters.removeUser(id);
+    }
+
     //Шаблонный метод
     @Override
     public void validationBeforeCreate(User user) {
@@ -59,57 +74,44 @@ public class UserService extends AbstractService<User, UserStorage> {
         }
     }
 
+    //Дружба и событие ленты записываются одной транзакцией основной базы. С шардами (filmorate.shards.count > 0)
+    //обе записи уходят в базы шардов, и @Transactional их не покрывает: копии дружбы в двух шардах согласует
+    //UserDbStorage, отменяя изменение при сбое, а событие пишется отдельно и при сбое после дружбы теряется
+    @Transactional
     public void addFriend(Long id, Long friendId) {
-        User user = this.findById(id);
-        User friend = this.findById(friendId);
-        if (user == null || friend == null) {
-            String message = ("Пользователь не найден");
-            log.warn(message);
-            throw  new NotFoundException(message);
-        }
-        if (user.containsFriend(friendId)) {
+        validateUsers(id, friendId);
+        if (!storage.addFriendship(id, friendId)) {
             log.warn("Друг существует");
             return;
         }
-        user.addFriend(friendId);
-
-        if (storage.containsFriendship(friendId, id, false)) {
-            //friendId уже добавил ранее в друзья
-            storage.updateFriendship(friendId, id, true, friendId, id);
-        } else if (!storage.containsFriendship(id, friendId, null)){
-            //Односторонняя связь, не было дружбы
-            storage.insertFriendship(id, friendId);
-        }
-       eventService.createAddFriendEvent(id, friendId);
+        eventService.createAddFriendEvent(id, friendId);
     }
 
+    //Границы транзакции те же, что у addFriend
+    @Transactional
     public void removeFriend(Long id, Long friendId) {
-        User user = this.findById(id);
-        User friend = this.findById(friendId);
-        if (user == null || friend == null) {
-            String message = ("Пользователь не найден");
-            log.warn(message);
-            throw  new NotFoundException(message);
-        }
-        if (!user.containsFriend(friendId)) {
+        validateUsers(id, friendId);
+        if (!storage.removeFriendship(id, friendId)) {
             log.warn("Друг не существует");
             return;
         }
-        user.removeFriend(friendId);
-
-        if (storage.containsFriendship(id, friendId, false)) {
-            //Односторонняя связь. friendId не одобрял
-            storage.removeFriendship(id, friendId);
-        } else if (storage.containsFriendship(id, friendId, true)) {
-            //Совместная связь
-            storage.updateFriendship(friendId, id, false, id, friendId);
-        } else if (storage.containsFriendship(friendId, id, true)) {
-            //Совместная связь. friendId первый добавил
-            storage.updateFriendship(friendId, id, false, friendId, id);
-        }
         eventService.createRemoveFriendEvent(id, friendId);
     }
 
+    public boolean contains(Long id) {
+        return storage.contains(id);
+    }
+
+    private void validateUsers(Long id, Long friendId) {
+        validateId(id);
+        validateId(friendId);
+        if (!storage.contains(id) || !storage.contains(friendId)) {
+            String message = ("Пользователь не найден");
+            log.warn(message);
+            throw  new NotFoundException(message);
+        }
+    }
+
     public List<User> getFriends(Long id) {
         User user = this.findById(id);
         if (user == null) {
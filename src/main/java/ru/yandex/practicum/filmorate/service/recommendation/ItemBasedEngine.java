@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+//Соседи лайкнутых фильмов из ItemSimilarityModel, оценка - сумма сходств
+
+@Component
+@ConditionalOnProperty(name = "filmorate.recommendations.mode", havingValue = "item")
+public class ItemBasedEngine implements RecommendationEngine {
+    private final LikesIndex likesIndex;
+    private final ItemSimilarityModel model;
+
+    @Autowired
+    public ItemBasedEngine(LikesIndex likesIndex, ItemSimilarityModel model) {
+        this.likesIndex = likesIndex;
+        this.model = model;
+    }
+
+    @Override
+    public RecommendationStore.Entry recommend(long userId, int limit) {
+        long[] userFilms = likesIndex.getFilms(userId);
+        Map<Long, Double> scores = new HashMap<>();
+        for (long filmId : userFilms) {
+            ItemSimilarityModel.Neighbours neighbours = model.getNeighbours(filmId);
+            for (int i = 0; i < neighbours.size(); i++) {
+                long neighbour = neighbours.getFilmId(i);
+                if (Arrays.binarySearch(userFilms, neighbour) < 0) {
+                    scores.merge(neighbour, neighbours.getScore(i), Double::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Long> filmIds = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            filmIds.add(ranked.get(i).getKey());
+        }
+        return new RecommendationStore.Entry(filmIds, new long[0]);
+    }
+
+    @Override
+    public boolean usesSimilarityModel() {
+        return true;
+    }
+}
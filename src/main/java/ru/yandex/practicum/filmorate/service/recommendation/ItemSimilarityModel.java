@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Top-K похожих фильмов для каждого фильма по FILMS_LIKES (косинус или Жаккар).
+//Пары считаются только для фильмов с общими лайкнувшими, фильмы делятся между задачами fork/join.
+//Модель перестраивается по расписанию, только если лайки менялись. В режиме item она нужна рекомендациям
+//и строится сразу; в остальных режимах - только для /films/{id}/similar, поэтому строится при первом запросе.
+
+@Component
+@Slf4j
+public class ItemSimilarityModel implements LikesIndex.Listener {
+    private static final Neighbours NO_NEIGHBOURS = new Neighbours(new long[0], new double[0]);
+    private static final int FILMS_PER_TASK = 64;
+
+    private final LikesIndex likesIndex;
+    private final ApplicationEventPublisher publisher;
+    private final ScoringPool scoringPool;
+    private final int k;
+    private final boolean jaccard;
+    private final boolean itemMode;
+    //лайки менялись после последнего перестроения
+    private final AtomicBoolean changed = new AtomicBoolean(true);
+    //null - модель ещё не строилась
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ItemSimilarityModel(LikesIndex likesIndex, ApplicationEventPublisher publisher, ScoringPool scoringPool,
+                               @Value("${filmorate.recommendations.similarity.k:20}") int k,
+                               @Value("${filmorate.recommendations.similarity.measure:cosine}") String measure,
+                               @Value("${filmorate.recommendations.mode:user}") String mode) {
+        this.likesIndex = likesIndex;
+        this.publisher = publisher;
+        this.scoringPool = scoringPool;
+        this.k = k;
+        this.jaccard = "jaccard".equalsIgnoreCase(measure);
+        this.itemMode = "item".equalsIgnoreCase(mode);
+        likesIndex.addListener(this);
+    }
+
+    public Neighbours getNeighbours(long filmId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = build();
+        }
+        int i = Arrays.binarySearch(current.films, filmId);
+        return i < 0 ? NO_NEIGHBOURS : current.neighbours[i];
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.similarity.refresh-delay-ms:60000}")
+    public void refresh() {
+        if (!itemMode && snapshot == null) {
+            return;
+        }
+        if (changed.get()) {
+            rebuild();
+        }
+    }
+
+    //Перестраивает модель независимо от изменений
+    public synchronized void rebuild() {
+        //изменения во время расчёта оставят отметку до следующего перестроения
+        changed.set(false);
+        long start = System.currentTimeMillis();
+        long[] films = likesIndex.getLikedFilms();
+        int[] likesCount = new int[films.length];
+        for (int i = 0; i < films.length; i++) {
+            likesCount[i] = likesIndex.getUsers(films[i]).length;
+        }
+        Neighbours[] neighbours = new Neighbours[films.length];
+        scoringPool.invoke(new RebuildTask(films, likesCount, neighbours, 0, films.length));
+        snapshot = new Snapshot(films, neighbours);
+        log.info("Перестроена модель похожих фильмов: фильмов {}, {} мс",
+                films.length, System.currentTimeMillis() - start);
+        publisher.publishEvent(new RebuiltEvent());
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId) {
+        changed.set(true);
+    }
+
+    @Override
+    public void userRemoved(long userId) {
+        changed.set(true);
+    }
+
+    @Override
+    public void reloaded() {
+        changed.set(true);
+    }
+
+    private synchronized Snapshot build() {
+        if (snapshot == null) {
+            rebuild();
+        }
+        return snapshot;
+    }
+
+    private Neighbours computeNeighbours(long filmId, int likes, long[] films, int[] likesCount) {
+        //сколько общих лайкнувших у filmId с каждым другим фильмом
+        LongCounter common = new LongCounter();
+        for (long userId : likesIndex.getUsers(filmId)) {
+            for (long other : likesIndex.getFilms(userId)) {
+                if (other != filmId) {
+                    common.increment(other);
+                }
+            }
+        }
+
+        //худший кандидат в голове очереди; при равном сходстве выше фильм с меньшим id
+        PriorityQueue<double[]> top = new PriorityQueue<>(k + 1, Comparator.<double[]>comparingDouble(a -> a[1])
+                .thenComparing(a -> -a[0]));
+        common.forEach((other, count) -> {
+            int i = Arrays.binarySearch(films, other);
+            //фильм мог получить первый лайк уже после снимка списка фильмов
+            int otherLikes = i < 0 ? count : likesCount[i];
+            double score = jaccard
+                    ? (double) count / Math.max(count, likes + otherLikes - count)
+                    : count / Math.sqrt((double) likes * otherLikes);
+            top.add(new double[]{other, score});
+            if (top.size() > k) {
+                top.poll();
+            }
+        });
+
+        int size = top.size();
+        long[] ids = new long[size];
+        double[] scores = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            double[] entry = top.poll();
+            ids[i] = (long) entry[0];
+            scores[i] = entry[1];
+        }
+        return new Neighbours(ids, scores);
+    }
+
+    private class RebuildTask extends RecursiveAction {
+        private final long[] films;
+        private final int[] likesCount;
+        private final Neighbours[] result;
+        private final int from;
+        private final int to;
+
+        RebuildTask(long[] films, int[] likesCount, Neighbours[] result, int from, int to) {
+            this.films = films;
+            this.likesCount = likesCount;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILMS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    result[i] = computeNeighbours(films[i], likesCount[i], films, likesCount);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RebuildTask(films, likesCount, result, from, middle),
+                    new RebuildTask(films, likesCount, result, middle, to));
+        }
+    }
+
+    //Похожие фильмы по убыванию сходства
+    public static class Neighbours {
+        private final long[] filmIds;
+        private final double[] scores;
+
+        Neighbours(long[] filmIds, double[] scores) {
+            this.filmIds = filmIds;
+            this.scores = scores;
+        }
+
+        public int size() {
+            return filmIds.length;
+        }
+
+        public long getFilmId(int i) {
+            return filmIds[i];
+        }
+
+        public double getScore(int i) {
+            return scores[i];
+        }
+    }
+
+    public static class RebuiltEvent {
+    }
+
+    private static class Snapshot {
+        private final long[] films;
+        private final Neighbours[] neighbours;
+
+        Snapshot(long[] films, Neighbours[] neighbours) {
+            this.films = films;
+            this.neighbours = neighbours;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Копия FILMS_LIKES в памяти: фильм -> пользователи (инвертированный индекс) и пользователь -> фильмы.
+//Списки хранятся отсортированными массивами long, изменения приходят из FilmService.
+//При старте индекс по возможности поднимается из снимка на диске, а не из базы.
+
+@Component
+@Slf4j
+public class LikesIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private final FilmStorage filmStorage;
+    private final LikesSnapshot snapshot;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, SortedLongs> usersByFilm = new HashMap<>();
+    private final Map<Long, SortedLongs> filmsByUser = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public LikesIndex(FilmStorage filmStorage, LikesSnapshot snapshot) {
+        this.filmStorage = filmStorage;
+        this.snapshot = snapshot;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!snapshot.restore(this)) {
+            load();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.snapshot.interval-ms:600000}",
+            initialDelayString = "${filmorate.recommendations.snapshot.interval-ms:600000}")
+    @PreDestroy
+    public void saveSnapshot() {
+        snapshot.save(this);
+    }
+
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            usersByFilm.clear();
+            filmsByUser.clear();
+            filmStorage.forEachLike((filmId, userId) -> {
+                usersByFilm.computeIfAbsent(filmId, id -> new SortedLongs()).append(userId);
+                filmsByUser.computeIfAbsent(userId, id -> new SortedLongs()).append(filmId);
+            });
+            usersByFilm.values().forEach(SortedLongs::sort);
+            filmsByUser.values().forEach(SortedLongs::sort);
+            log.info("Загружен индекс лайков: фильмов {}, пользователей {}", usersByFilm.size(), filmsByUser.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listeners.forEach(Listener::reloaded);
+    }
+
+    //Слушатели вызываются после изменения индекса, вне блокировки
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean addLike(long filmId, long userId) {
+        boolean added;
+        lock.writeLock().lock();
+        try {
+            added = usersByFilm.computeIfAbsent(filmId, id -> new SortedLongs()).add(userId);
+            filmsByUser.computeIfAbsent(userId, id -> new SortedLongs()).add(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (added) {
+            listeners.forEach(listener -> listener.likeChanged(filmId, userId));
+        }
+        return added;
+    }
+
+    public boolean removeLike(long filmId, long userId) {
+        boolean removed;
+        lock.writeLock().lock();
+        try {
+            removed = remove(usersByFilm, filmId, userId);
+            remove(filmsByUser, userId, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed) {
+            listeners.forEach(listener -> listener.likeChanged(filmId, userId));
+        }
+        return removed;
+    }
+
+    public void removeFilm(long filmId) {
+        SortedLongs users;
+        lock.writeLock().lock();
+        try {
+            users = usersByFilm.remove(filmId);
+            if (users != null) {
+                for (int i = 0; i < users.size; i++) {
+                    remove(filmsByUser, users.values[i], filmId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (users != null) {
+            for (int i = 0; i < users.size; i++) {
+                long userId = users.values[i];
+                listeners.forEach(listener -> listener.likeChanged(filmId, userId));
+            }
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            SortedLongs films = filmsByUser.remove(userId);
+            if (films != null) {
+                for (int i = 0; i < films.size; i++) {
+                    remove(usersByFilm, films.values[i], userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listeners.forEach(listener -> listener.userRemoved(userId));
+    }
+
+    //Отсортированные id всех фильмов, у которых есть лайки
+    public long[] getLikedFilms() {
+        lock.readLock().lock();
+        try {
+            long[] films = usersByFilm.keySet().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(films);
+            return films;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Отсортированные id всех пользователей, у которых есть лайки
+    public long[] getLikingUsers() {
+        lock.readLock().lock();
+        try {
+            long[] users = filmsByUser.keySet().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(users);
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Отсортированная копия фильмов, которые лайкнул пользователь
+    public long[] getFilms(long userId) {
+        return copyOf(filmsByUser, userId);
+    }
+
+    //Отсортированная копия пользователей, лайкнувших фильм
+    public long[] getUsers(long filmId) {
+        return copyOf(usersByFilm, filmId);
+    }
+
+    //Копии списков лайкнувших для каждого из фильмов, снятые под одной блокировкой
+    public long[][] getUserLists(long[] filmIds) {
+        long[][] lists = new long[filmIds.length][];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < filmIds.length; i++) {
+                SortedLongs users = usersByFilm.get(filmIds[i]);
+                lists[i] = users == null ? EMPTY : Arrays.copyOf(users.values, users.size);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return lists;
+    }
+
+    //Копия списков лайкнувших по фильмам для записи снимка
+    Map<Long, long[]> copyUsersByFilm() {
+        lock.readLock().lock();
+        try {
+            Map<Long, long[]> copy = new HashMap<>(usersByFilm.size() * 2);
+            usersByFilm.forEach((filmId, users) -> copy.put(filmId, Arrays.copyOf(users.values, users.size)));
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Заменяет содержимое индекса списками из снимка; списки пользователей уже отсортированы
+    void restore(long[] filmIds, long[][] users) {
+        lock.writeLock().lock();
+        try {
+            usersByFilm.clear();
+            filmsByUser.clear();
+            for (int i = 0; i < filmIds.length; i++) {
+                usersByFilm.put(filmIds[i], new SortedLongs(users[i]));
+                for (long userId : users[i]) {
+                    filmsByUser.computeIfAbsent(userId, id -> new SortedLongs()).append(filmIds[i]);
+                }
+            }
+            filmsByUser.values().forEach(SortedLongs::sort);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //То же, что FilmStorage.getLikesChecksum, но по индексу
+    long[] checksum() {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            long sum = 0;
+            for (Map.Entry<Long, SortedLongs> entry : usersByFilm.entrySet()) {
+                SortedLongs users = entry.getValue();
+                count += users.size;
+                for (int i = 0; i < users.size; i++) {
+                    sum += entry.getKey() * 1000003 + users.values[i];
+                }
+            }
+            return new long[]{count, sum};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] copyOf(Map<Long, SortedLongs> map, long key) {
+        lock.readLock().lock();
+        try {
+            SortedLongs values = map.get(key);
+            return values == null ? EMPTY : Arrays.copyOf(values.values, values.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean remove(Map<Long, SortedLongs> map, long key, long value) {
+        SortedLongs values = map.get(key);
+        if (values == null || !values.remove(value)) {
+            return false;
+        }
+        if (values.size == 0) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    public interface Listener {
+        void likeChanged(long filmId, long userId);
+
+        default void userRemoved(long userId) {
+        }
+
+        //Индекс перезагружен из базы целиком, например после массовой вставки данных
+        default void reloaded() {
+        }
+    }
+
+    private static class SortedLongs {
+        private long[] values;
+        private int size;
+
+        SortedLongs() {
+            values = new long[4];
+        }
+
+        SortedLongs(long[] values) {
+            this.values = values;
+            this.size = values.length;
+        }
+
+        void append(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size << 1));
+            }
+            values[size++] = value;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        boolean add(long value) {
+            int i = Arrays.binarySearch(values, 0, size, value);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, size << 1));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = value;
+            size++;
+            return true;
+        }
+
+        boolean remove(long value) {
+            int i = Arrays.binarySearch(values, 0, size, value);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.enums.EventType;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.EventStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+//Двоичный снимок индекса лайков: заголовок (метка, версия, id последнего события, число фильмов),
+//затем для каждого фильма его id, число лайкнувших и их отсортированные id - всё как long.
+//При старте снимок читается буферизованным потоком и догоняется событиями LIKE из EVENTS.
+//Снимок есть только у индекса лайков: модель похожести фильмов и готовые рекомендации после перезапуска
+//строятся заново - модель при первом обращении или по расписанию, рекомендации по запросу и фоновой задачей.
+
+@Component
+@Slf4j
+public class LikesSnapshot {
+    private static final long MAGIC = 0x46494C4D4C494B45L;
+    private static final long VERSION = 1;
+    private static final long HEADER_LONGS = 4;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final EventStorage eventStorage;
+    private final Path path;
+
+    @Autowired
+    public LikesSnapshot(FilmStorage filmStorage, UserStorage userStorage, EventStorage eventStorage,
+                         @Value("${filmorate.recommendations.snapshot.path:}") String path) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.eventStorage = eventStorage;
+        this.path = path.isBlank() ? null : Paths.get(path);
+    }
+
+    public void save(LikesIndex index) {
+        if (path == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        //id события читается до копирования: событие пишется после изменения индекса,
+        //поэтому всё, что было до этого id, уже попало в копию, а более поздние события повторятся при загрузке
+        long lastEventId = eventStorage.getLastEventId();
+        Map<Long, long[]> usersByFilm = index.copyUsersByFilm();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp),
+                    1 << 16))) {
+                out.writeLong(MAGIC);
+                out.writeLong(VERSION);
+                out.writeLong(lastEventId);
+                out.writeLong(usersByFilm.size());
+                for (Map.Entry<Long, long[]> entry : usersByFilm.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeLong(entry.getValue().length);
+                    for (long userId : entry.getValue()) {
+                        out.writeLong(userId);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Записан снимок индекса лайков {}: фильмов {}, событие {}, {} мс",
+                    path, usersByFilm.size(), lastEventId, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("Не удалось записать снимок индекса лайков {}: {}", path, e.getMessage());
+        }
+    }
+
+    //Возвращает false, если снимка нет или после догона он не сошёлся с FILMS_LIKES -
+    //тогда индекс нужно загрузить из базы
+    public boolean restore(LikesIndex index) {
+        if (path == null || !Files.isRegularFile(path)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        long lastEventId;
+        //индекс хранит лайки в массивах в куче, поэтому снимок читается потоком прямо в них
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (Files.size(path) < HEADER_LONGS * Long.BYTES || in.readLong() != MAGIC || in.readLong() != VERSION) {
+                log.warn("Файл {} не является снимком индекса лайков", path);
+                return false;
+            }
+            lastEventId = in.readLong();
+            int films = readCount(in);
+            long[] filmIds = new long[films];
+            long[][] users = new long[films][];
+            for (int i = 0; i < films; i++) {
+                filmIds[i] = in.readLong();
+                users[i] = new long[readCount(in)];
+                for (int j = 0; j < users[i].length; j++) {
+                    users[i][j] = in.readLong();
+                }
+            }
+            index.restore(filmIds, users);
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать снимок индекса лайков {}: {}", path, e.toString());
+            return false;
+        }
+
+        if (lastEventId > eventStorage.getLastEventId()) {
+            log.warn("Снимок индекса лайков {} новее базы, загрузка из базы", path);
+            return false;
+        }
+        int[] replayed = {0};
+        eventStorage.forEachEventAfter(lastEventId, EventType.LIKE, event -> {
+            if (event.getOperation() == Operation.ADD) {
+                index.addLike(event.getEntityId(), event.getUserId());
+            } else if (event.getOperation() == Operation.REMOVE) {
+                index.removeLike(event.getEntityId(), event.getUserId());
+            }
+            replayed[0]++;
+        });
+
+        //удаление фильма или пользователя каскадно убирает лайки без событий
+        Set<Long> films = new HashSet<>(filmStorage.findAllIds());
+        for (long filmId : index.getLikedFilms()) {
+            if (!films.contains(filmId)) {
+                index.removeFilm(filmId);
+            }
+        }
+        Set<Long> users = new HashSet<>(userStorage.findAllIds());
+        for (long userId : index.getLikingUsers()) {
+            if (!users.contains(userId)) {
+                index.removeUser(userId);
+            }
+        }
+
+        if (!Arrays.equals(index.checksum(), filmStorage.getLikesChecksum())) {
+            log.warn("Снимок индекса лайков {} не сошёлся с базой после догона, загрузка из базы", path);
+            return false;
+        }
+        log.info("Индекс лайков загружен из снимка {}: повторено событий {}, {} мс",
+                path, replayed[0], System.currentTimeMillis() - start);
+        return true;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        long count = in.readLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("неверное число элементов " + count);
+        }
+        return (int) count;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import java.util.Arrays;
+
+//Счётчик long -> int на открытой адресации, без упаковки ключей в Long
+
+public class LongCounter {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public LongCounter() {
+        this(16);
+    }
+
+    public LongCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int add(long key, int delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Недопустимый ключ " + key);
+        }
+        int i = indexOf(key, keys);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+            if (size > keys.length * LOAD_FACTOR) {
+                counts[i] = delta;
+                grow();
+                return delta;
+            }
+        }
+        counts[i] += delta;
+        return counts[i];
+    }
+
+    public int increment(long key) {
+        return add(key, 1);
+    }
+
+    public int get(long key) {
+        int i = indexOf(key, keys);
+        return keys[i] == EMPTY ? 0 : counts[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    //Добавляет значения другого счётчика к этому
+    public void addAll(LongCounter other) {
+        other.forEach(this::add);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length << 1];
+        counts = new int[oldKeys.length << 1];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = indexOf(oldKeys[i], keys);
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int indexOf(long key, long[] keys) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, int count);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+//Приближённый режим: кандидаты в соседи - коллизии в LSH-корзинах, затем точный подсчёт общих лайков.
+//Пользователь, не совпавший ни с кем ни в одной полосе, остаётся без рекомендаций.
+
+@Component
+@ConditionalOnProperty(name = "filmorate.recommendations.mode", havingValue = "approximate")
+@Slf4j
+public class MinHashEngine extends NeighbourhoodEngine implements LikesIndex.Listener {
+    private final MinHashIndex index;
+
+    @Autowired
+    public MinHashEngine(LikesIndex likesIndex,
+                         @Value("${filmorate.recommendations.minhash.bands:32}") int bands,
+                         @Value("${filmorate.recommendations.minhash.rows:2}") int rows,
+                         @Value("${filmorate.recommendations.minhash.seed:42}") long seed) {
+        super(likesIndex);
+        this.index = new MinHashIndex(bands, rows, seed);
+    }
+
+    @PostConstruct
+    public void init() {
+        likesIndex.addListener(this);
+        build();
+    }
+
+    @Override
+    protected long[] findNeighbours(long userId, long[] userFilms) {
+        LongCounter matches = new LongCounter();
+        for (Long candidate : index.getCandidates(userId)) {
+            int common = countCommon(userFilms, likesIndex.getFilms(candidate));
+            if (common > 0) {
+                matches.add(candidate, common);
+            }
+        }
+        return mostMatched(matches);
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId) {
+        index.update(userId, likesIndex.getFilms(userId));
+    }
+
+    @Override
+    public void userRemoved(long userId) {
+        index.remove(userId);
+    }
+
+    @Override
+    public void reloaded() {
+        index.clear();
+        build();
+    }
+
+    private void build() {
+        for (long userId : likesIndex.getLikingUsers()) {
+            index.update(userId, likesIndex.getFilms(userId));
+        }
+        log.info("Построены MinHash-подписи для {} пользователей", index.size());
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+//MinHash-подписи множеств лайкнутых фильмов и LSH-корзины по полосам подписи.
+//Пользователи с похожими множествами с большой вероятностью попадают в общую корзину хотя бы одной полосы.
+
+public class MinHashIndex {
+    private final int bands;
+    private final int rows;
+    private final long[] multipliers;
+    private final long[] increments;
+    private final Map<Long, long[]> bandKeys = new ConcurrentHashMap<>();
+    //полоса -> ключ корзины -> пользователи
+    private final Map<Long, Set<Long>>[] buckets;
+
+    @SuppressWarnings("unchecked")
+    public MinHashIndex(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        int hashes = bands * rows;
+        SplittableRandom random = new SplittableRandom(seed);
+        multipliers = new long[hashes];
+        increments = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+        buckets = new Map[bands];
+        for (int band = 0; band < bands; band++) {
+            buckets[band] = new ConcurrentHashMap<>();
+        }
+    }
+
+    //Пересчитывает подпись пользователя и переносит его в новые корзины
+    public synchronized void update(long userId, long[] films) {
+        remove(userId);
+        if (films.length == 0) {
+            return;
+        }
+        long[] keys = bandKeys(signature(films));
+        for (int band = 0; band < bands; band++) {
+            buckets[band].computeIfAbsent(keys[band], key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+        bandKeys.put(userId, keys);
+    }
+
+    public synchronized void remove(long userId) {
+        long[] keys = bandKeys.remove(userId);
+        if (keys == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            Set<Long> users = buckets[band].get(keys[band]);
+            if (users != null) {
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    buckets[band].remove(keys[band]);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        bandKeys.clear();
+        for (Map<Long, Set<Long>> band : buckets) {
+            band.clear();
+        }
+    }
+
+    //Пользователи, попавшие хотя бы в одну общую корзину с userId
+    public Set<Long> getCandidates(long userId) {
+        Set<Long> candidates = new HashSet<>();
+        long[] keys = bandKeys.get(userId);
+        if (keys == null) {
+            return candidates;
+        }
+        for (int band = 0; band < bands; band++) {
+            Set<Long> users = buckets[band].get(keys[band]);
+            if (users != null) {
+                candidates.addAll(users);
+            }
+        }
+        candidates.remove(userId);
+        return candidates;
+    }
+
+    public int size() {
+        return bandKeys.size();
+    }
+
+    private long[] signature(long[] films) {
+        long[] signature = new long[multipliers.length];
+        for (int i = 0; i < signature.length; i++) {
+            long min = Long.MAX_VALUE;
+            for (long film : films) {
+                min = Math.min(min, mix(film * multipliers[i] + increments[i]));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+//Общая часть user-user алгоритмов: соседи с наибольшим числом общих лайков и их фильмы.
+//Наследники решают, как находить кандидатов в соседи и считать совпадения.
+
+public abstract class NeighbourhoodEngine implements RecommendationEngine {
+    protected final LikesIndex likesIndex;
+
+    protected NeighbourhoodEngine(LikesIndex likesIndex) {
+        this.likesIndex = likesIndex;
+    }
+
+    //Пользователи с наибольшим числом общих лайков с userId (хотя бы одним)
+    protected abstract long[] findNeighbours(long userId, long[] userFilms);
+
+    @Override
+    public RecommendationStore.Entry recommend(long userId, int limit) {
+        //фильмы, лайкнутые пользователем
+        long[] userFilms = likesIndex.getFilms(userId);
+
+        //id пользователей с наибольшими совпадениями по лайкам
+        long[] similarity = findNeighbours(userId, userFilms);
+        if (similarity.length == 0) {
+            return new RecommendationStore.Entry(List.of(), similarity);
+        }
+
+        //фильм тем выше, чем больше соседей его лайкнули
+        LongCounter candidates = new LongCounter();
+        for (long id : similarity) {
+            for (long filmId : likesIndex.getFilms(id)) {
+                if (Arrays.binarySearch(userFilms, filmId) < 0) {
+                    candidates.increment(filmId);
+                }
+            }
+        }
+        List<long[]> ranked = new ArrayList<>(candidates.size());
+        candidates.forEach((filmId, count) -> ranked.add(new long[]{filmId, count}));
+        ranked.sort(Comparator.<long[]>comparingLong(film -> -film[1]).thenComparingLong(film -> film[0]));
+
+        List<Long> filmIds = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            filmIds.add(ranked.get(i)[0]);
+        }
+        return new RecommendationStore.Entry(filmIds, similarity);
+    }
+
+    //Ключи с наибольшим положительным значением счётчика
+    protected static long[] mostMatched(LongCounter matches) {
+        int[] maxMatches = {0};
+        List<Long> similarity = new ArrayList<>();
+        matches.forEach((id, count) -> {
+            if (count > maxMatches[0]) {
+                maxMatches[0] = count;
+                similarity.clear();
+            }
+            if (count == maxMatches[0] && count > 0) {
+                similarity.add(id);
+            }
+        });
+        return similarity.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    //Размер пересечения двух отсортированных массивов
+    protected static int countCommon(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+//Алгоритм рекомендаций выбирается свойством filmorate.recommendations.mode
+
+public interface RecommendationEngine {
+    RecommendationStore.Entry recommend(long userId, int limit);
+
+    //Нужно ли пересчитывать рекомендации после перестроения ItemSimilarityModel
+    default boolean usesSimilarityModel() {
+        return false;
+    }
+}
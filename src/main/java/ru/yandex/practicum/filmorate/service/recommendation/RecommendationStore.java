@@ -0,0 +1,193 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+//Готовые рекомендации по пользователям. Пользователь становится "грязным", когда меняются
+//его лайки или лайки его ближайших соседей; такие записи пересчитывает фоновая задача.
+//Расчёт, начатый до изменения лайков пользователя, свою запись не сохраняет: её проверяет версия пользователя.
+
+@Component
+public class RecommendationStore implements LikesIndex.Listener {
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, DirtyMark> dirty = new ConcurrentHashMap<>();
+    //сосед -> пользователи, у которых он в ближайших соседях
+    private final Map<Long, Set<Long>> dependants = new ConcurrentHashMap<>();
+    //растёт при каждом изменении лайков пользователя; удалённый пользователь убирается
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    //растёт при перезагрузке индекса и удалении пользователя: расчёты, начатые до этого, не сохраняются
+    private final AtomicLong epoch = new AtomicLong();
+    private final Timer refreshLag;
+
+    @Autowired
+    public RecommendationStore(LikesIndex likesIndex, MeterRegistry registry) {
+        likesIndex.addListener(this);
+        refreshLag = Timer.builder("filmorate.recommendations.refresh.lag")
+                .description("Время от изменения лайков до пересчёта рекомендаций")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        Gauge.builder("filmorate.recommendations.store.size", entries, Map::size)
+                .register(registry);
+        Gauge.builder("filmorate.recommendations.dirty.users", dirty, Map::size)
+                .register(registry);
+        Gauge.builder("filmorate.recommendations.staleness", this, RecommendationStore::getMaxStalenessMillis)
+                .description("Возраст самой старой неактуальной записи")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public Entry get(long userId) {
+        return entries.get(userId);
+    }
+
+    //Пересчитывает рекомендации пользователя и снимает отметку, если за время расчёта не было новых изменений.
+    //Результат возвращается всегда, но сохраняется, только если лайки пользователя за это время не менялись
+    public Entry refresh(long userId, LongFunction<Entry> compute) {
+        DirtyMark mark = dirty.get(userId);
+        long started = epoch.get();
+        Long version = versions.get(userId);
+        Entry entry = compute.apply(userId);
+        Entry[] replaced = new Entry[1];
+        Entry stored = entries.compute(userId, (id, current) -> {
+            if (epoch.get() != started || !Objects.equals(versions.get(userId), version)) {
+                return current;
+            }
+            replaced[0] = current;
+            return entry;
+        });
+        if (stored != entry) {
+            return entry;
+        }
+        if (replaced[0] != null) {
+            unlink(userId, replaced[0]);
+        }
+        for (long neighbour : entry.getNeighbours()) {
+            dependants.compute(neighbour, (id, users) -> {
+                Set<Long> result = users != null ? users : ConcurrentHashMap.newKeySet();
+                result.add(userId);
+                return result;
+            });
+        }
+        if (mark != null && dirty.remove(userId, mark)) {
+            refreshLag.record(System.nanoTime() - mark.markedAt, TimeUnit.NANOSECONDS);
+        }
+        return entry;
+    }
+
+    public List<Long> getDirtyUsers(int limit) {
+        List<Long> users = new ArrayList<>(Math.min(limit, dirty.size()));
+        for (Long userId : dirty.keySet()) {
+            if (users.size() >= limit) {
+                break;
+            }
+            users.add(userId);
+        }
+        return users;
+    }
+
+    public long getMaxStalenessMillis() {
+        long now = System.nanoTime();
+        long max = 0;
+        for (DirtyMark mark : dirty.values()) {
+            max = Math.max(max, now - mark.markedAt);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(max);
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId) {
+        //свои лайки пользователь должен увидеть сразу: запись пересчитается при следующем запросе
+        versions.merge(userId, 1L, Long::sum);
+        remove(userId);
+        markDirty(userId);
+        Set<Long> users = dependants.get(userId);
+        if (users != null) {
+            users.forEach(this::markDirty);
+        }
+    }
+
+    @Override
+    public void userRemoved(long userId) {
+        epoch.incrementAndGet();
+        versions.remove(userId);
+        remove(userId);
+        dirty.remove(userId);
+        Set<Long> users = dependants.remove(userId);
+        if (users != null) {
+            users.forEach(this::markDirty);
+        }
+    }
+
+    @Override
+    public void reloaded() {
+        epoch.incrementAndGet();
+        entries.clear();
+        dirty.clear();
+        dependants.clear();
+    }
+
+    //true, если о пользователе что-то хранится: запись, отметка или версия
+    boolean isTracked(long userId) {
+        return entries.containsKey(userId) || dirty.containsKey(userId) || versions.containsKey(userId);
+    }
+
+    //Все готовые записи устарели, например после перестроения модели
+    public void markAllDirty() {
+        entries.keySet().forEach(this::markDirty);
+    }
+
+    //Запись удаляется вместе с отметками пользователя у её соседей, иначе они останутся навсегда
+    private void remove(long userId) {
+        Entry old = entries.remove(userId);
+        if (old != null) {
+            unlink(userId, old);
+        }
+    }
+
+    private void unlink(long userId, Entry entry) {
+        for (long neighbour : entry.getNeighbours()) {
+            dependants.computeIfPresent(neighbour, (id, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private void markDirty(long userId) {
+        //новая отметка сохраняет время первого изменения, но отличается от прежней для refresh
+        dirty.compute(userId, (id, mark) -> new DirtyMark(mark == null ? System.nanoTime() : mark.markedAt));
+    }
+
+    @Getter
+    public static class Entry {
+        private final List<Long> filmIds;
+        private final long[] neighbours;
+
+        public Entry(List<Long> filmIds, long[] neighbours) {
+            this.filmIds = filmIds;
+            this.neighbours = neighbours;
+        }
+    }
+
+    private static class DirtyMark {
+        private final long markedAt;
+
+        DirtyMark(long markedAt) {
+            this.markedAt = markedAt;
+        }
+    }
+}
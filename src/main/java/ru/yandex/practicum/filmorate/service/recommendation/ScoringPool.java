@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+//Общий fork/join пул для расчёта рекомендаций, отдельный от потоков обработки запросов.
+//Один запрос делится не более чем на request-parallelism задач, чтобы тяжёлый расчёт не занимал весь пул.
+
+@Component
+@Slf4j
+public class ScoringPool {
+    private static final long[] EMPTY = new long[0];
+
+    private final ForkJoinPool pool;
+    private final int requestParallelism;
+    private final int parallelThreshold;
+
+    @Autowired
+    public ScoringPool(@Value("${filmorate.recommendations.pool.parallelism:0}") int parallelism,
+                       @Value("${filmorate.recommendations.pool.request-parallelism:4}") int requestParallelism,
+                       @Value("${filmorate.recommendations.pool.parallel-threshold:50000}") int parallelThreshold) {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(size);
+        this.requestParallelism = Math.max(1, Math.min(requestParallelism, size));
+        this.parallelThreshold = parallelThreshold;
+        log.info("Пул расчёта рекомендаций: потоков {}, на запрос не более {}", size, this.requestParallelism);
+    }
+
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return pool.invoke(task);
+    }
+
+    //Пользователи, встречающиеся в наибольшем числе отсортированных списков, кроме excludedUserId.
+    //Задачи делят между собой диапазоны id пользователей, поэтому их результаты не пересекаются.
+    public long[] findMostSimilar(long[][] userLists, long excludedUserId) {
+        long[] longest = EMPTY;
+        int total = 0;
+        for (long[] users : userLists) {
+            total += users.length;
+            if (users.length > longest.length) {
+                longest = users;
+            }
+        }
+        int parts = Math.min(requestParallelism, longest.length);
+        if (parts < 2 || total < parallelThreshold) {
+            return findMostSimilar(userLists, Long.MIN_VALUE, Long.MAX_VALUE, excludedUserId).users;
+        }
+
+        //границы диапазонов - квантили самого длинного списка
+        long[] bounds = new long[parts + 1];
+        bounds[0] = Long.MIN_VALUE;
+        bounds[parts] = Long.MAX_VALUE;
+        for (int part = 1; part < parts; part++) {
+            bounds[part] = longest[(int) ((long) longest.length * part / parts)];
+        }
+        return pool.invoke(new MostSimilarTask(userLists, bounds, 0, parts, excludedUserId)).users;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static Best findMostSimilar(long[][] userLists, long from, long to, long excludedUserId) {
+        LongCounter counter = new LongCounter();
+        for (long[] users : userLists) {
+            int i = Arrays.binarySearch(users, from);
+            for (i = i < 0 ? -i - 1 : i; i < users.length && users[i] < to; i++) {
+                if (users[i] != excludedUserId) {
+                    counter.increment(users[i]);
+                }
+            }
+        }
+        int[] max = {0};
+        counter.forEach((userId, count) -> max[0] = Math.max(max[0], count));
+        long[] users = new long[counter.size()];
+        int[] size = {0};
+        counter.forEach((userId, count) -> {
+            if (count == max[0]) {
+                users[size[0]++] = userId;
+            }
+        });
+        return new Best(max[0], Arrays.copyOf(users, size[0]));
+    }
+
+    private static class Best {
+        private final int count;
+        private final long[] users;
+
+        Best(int count, long[] users) {
+            this.count = count;
+            this.users = users;
+        }
+
+        Best merge(Best other) {
+            if (count != other.count) {
+                return count > other.count ? this : other;
+            }
+            long[] merged = Arrays.copyOf(users, users.length + other.users.length);
+            System.arraycopy(other.users, 0, merged, users.length, other.users.length);
+            return new Best(count, merged);
+        }
+    }
+
+    private static class MostSimilarTask extends RecursiveTask<Best> {
+        private final long[][] userLists;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final long excludedUserId;
+
+        MostSimilarTask(long[][] userLists, long[] bounds, int from, int to, long excludedUserId) {
+            this.userLists = userLists;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.excludedUserId = excludedUserId;
+        }
+
+        @Override
+        protected Best compute() {
+            if (to - from == 1) {
+                return findMostSimilar(userLists, bounds[from], bounds[to], excludedUserId);
+            }
+            int middle = (from + to) >>> 1;
+            MostSimilarTask right = new MostSimilarTask(userLists, bounds, middle, to, excludedUserId);
+            right.fork();
+            Best left = new MostSimilarTask(userLists, bounds, from, middle, excludedUserId).compute();
+            return left.merge(right.join());
+        }
+    }
+}
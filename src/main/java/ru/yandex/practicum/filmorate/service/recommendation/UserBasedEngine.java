@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//Точный подсчёт: совпадения считаются по всем пользователям, у которых есть общие фильмы.
+//Списки лайкнувших копируются из индекса и обходятся параллельно в общем пуле.
+
+@Component
+@ConditionalOnProperty(name = "filmorate.recommendations.mode", havingValue = "user", matchIfMissing = true)
+public class UserBasedEngine extends NeighbourhoodEngine {
+    private final ScoringPool scoringPool;
+
+    @Autowired
+    public UserBasedEngine(LikesIndex likesIndex, ScoringPool scoringPool) {
+        super(likesIndex);
+        this.scoringPool = scoringPool;
+    }
+
+    @Override
+    protected long[] findNeighbours(long userId, long[] userFilms) {
+        return scoringPool.findMostSimilar(likesIndex.getUserLists(userFilms), userId);
+    }
+}
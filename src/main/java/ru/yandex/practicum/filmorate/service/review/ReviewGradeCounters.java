@@ -0,0 +1,291 @@
+package ru.yandex.practicum.filmorate.service.review;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+//Живые оценки отзывов, которые недавно оценивали. Полезность - полосатый счётчик LongAdder,
+//оценки пользователей - ConcurrentHashMap; изменения пишутся в GRADES фоновой задачей пачками.
+//Отзыв, который не оценивали целый период сброса, выгружается из памяти.
+//Запись оценки ничего не блокирует: выгрузка сначала помечает отзыв выгружаемым, потом сбрасывает его
+//оставшиеся изменения и только затем убирает из карты. Писатель, который после записи видит отметку,
+//повторяет оценку на свежей записи, - его изменение либо уже сброшено, либо применится заново.
+//Писатель, заставший отметку до записи, не крутится, а ждёт на защёлке, которую выгрузка открывает по окончании.
+
+@Component
+@Slf4j
+public class ReviewGradeCounters {
+    //защёлка навсегда выгруженной записи: ждать нечего
+    private static final CountDownLatch RELEASED = new CountDownLatch(0);
+
+    private final ReviewStorage storage;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReviewGradeCounters(ReviewStorage storage, MeterRegistry registry) {
+        this.storage = storage;
+        Gauge.builder("filmorate.reviews.grades.cached", entries, Map::size)
+                .description("Отзывы с живыми счётчиками полезности")
+                .register(registry);
+        Gauge.builder("filmorate.reviews.grades.pending", this, ReviewGradeCounters::getPendingCount)
+                .description("Оценки, ещё не записанные в базу")
+                .register(registry);
+    }
+
+    //positive == null - снять оценку. Возвращает false, если оценка не изменилась
+    public boolean setGrade(long reviewId, long userId, Boolean positive) {
+        Boolean changed = null;
+        while (true) {
+            Entry entry = getOrLoad(reviewId);
+            CountDownLatch retiring = entry.retiring;
+            if (retiring != null) {
+                //запись выгружается прямо сейчас: ждём конца сброса, а не крутимся
+                awaitRelease(retiring);
+                continue;
+            }
+            Boolean previous = positive == null ? entry.grades.remove(userId) : entry.grades.put(userId, positive);
+            if (!Objects.equals(previous, positive)) {
+                entry.useful.add(value(positive) - value(previous));
+                entry.dirty.add(userId);
+            }
+            if (!entry.touched) {
+                entry.touched = true;
+            }
+            //результат первой попытки: повтор видит уже применённую оценку
+            if (changed == null) {
+                changed = !Objects.equals(previous, positive);
+            }
+            if (entry.retiring == null) {
+                return changed;
+            }
+        }
+    }
+
+    private static void awaitRelease(CountDownLatch retiring) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                retiring.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Подставляет живые полезность и оценки; false, если отзыва нет в памяти
+    public boolean fill(Review review) {
+        Entry entry = entries.get(review.getId());
+        if (entry == null) {
+            return false;
+        }
+        review.setUseful(entry.useful.intValue());
+        entry.grades.forEach(review::addGrade);
+        return true;
+    }
+
+    //Живая полезность отзывов фильма (всех фильмов при filmId == null): id отзыва -> полезность
+    public Map<Long, Integer> getUseful(Long filmId) {
+        Map<Long, Integer> useful = new HashMap<>();
+        entries.forEach((reviewId, entry) -> {
+            if (filmId == null || entry.filmId == filmId) {
+                useful.put(reviewId, entry.useful.intValue());
+            }
+        });
+        return useful;
+    }
+
+    public void removeReview(long reviewId) {
+        Entry entry = entries.remove(reviewId);
+        if (entry != null) {
+            entry.retiring = RELEASED;
+        }
+    }
+
+    //Оценки удалённого пользователя база убирает каскадно, здесь они просто забываются
+    public void removeUser(long userId) {
+        for (Entry entry : entries.values()) {
+            Boolean previous = entry.grades.remove(userId);
+            if (previous != null) {
+                entry.useful.add(-value(previous));
+            }
+            entry.dirty.remove(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.reviews.grades.flush-ms:1000}",
+            initialDelayString = "${filmorate.reviews.grades.flush-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        int flushed = 0;
+        for (Map.Entry<Long, Entry> mapEntry : entries.entrySet()) {
+            long reviewId = mapEntry.getKey();
+            Entry entry = mapEntry.getValue();
+            if (entry.dirty.isEmpty()) {
+                if (!entry.touched) {
+                    evict(reviewId, entry);
+                }
+                entry.touched = false;
+                continue;
+            }
+            entry.touched = false;
+            flushed += flush(reviewId, entry);
+        }
+        if (flushed > 0) {
+            log.debug("Записано оценок отзывов: {}", flushed);
+        }
+    }
+
+    public long getPendingCount() {
+        long pending = 0;
+        for (Entry entry : entries.values()) {
+            pending += entry.dirty.size();
+        }
+        return pending;
+    }
+
+    private int flush(long reviewId, Entry entry) {
+        //пользователь снимается с отметки до чтения оценки: более позднее изменение отметит его снова
+        Map<Long, Boolean> saved = new HashMap<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Long userId : entry.dirty) {
+            entry.dirty.remove(userId);
+            Boolean positive = entry.grades.get(userId);
+            if (positive == null) {
+                deleted.add(userId);
+            } else {
+                saved.put(userId, positive);
+            }
+        }
+        try {
+            storage.saveGrades(reviewId, saved, deleted);
+            return saved.size() + deleted.size();
+        } catch (DataIntegrityViolationException e) {
+            if (storage.findById(reviewId) == null) {
+                //отзыв удалён: его оценки в памяти больше не нужны
+                log.warn("Отзыв {} удалён, его оценки не записаны", reviewId);
+                if (entries.remove(reviewId, entry)) {
+                    entry.retiring = RELEASED;
+                }
+                return 0;
+            }
+            //оценка удалённого пользователя не должна терять оценки остальных: пачка пишется по одной
+            int written = 0;
+            for (Map.Entry<Long, Boolean> grade : saved.entrySet()) {
+                written += flushOne(reviewId, entry, grade.getKey(), grade.getValue());
+            }
+            for (Long userId : deleted) {
+                written += flushOne(reviewId, entry, userId, null);
+            }
+            return written;
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать оценки отзыва {}, повтор при следующем сбросе: {}",
+                    reviewId, e.getMessage());
+            entry.dirty.addAll(saved.keySet());
+            entry.dirty.addAll(deleted);
+        }
+        return 0;
+    }
+
+    private int flushOne(long reviewId, Entry entry, long userId, Boolean positive) {
+        try {
+            storage.saveGrades(reviewId, positive == null ? Map.of() : Map.of(userId, positive),
+                    positive == null ? List.of(userId) : List.of());
+            return 1;
+        } catch (DataIntegrityViolationException e) {
+            //пользователь удалён, база уже убрала его оценки каскадно
+            log.warn("Оценка пользователя {} отзыва {} не записана: {}", userId, reviewId, e.getMessage());
+            if (positive != null && entry.grades.remove(userId, positive)) {
+                entry.useful.add(-value(positive));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать оценку пользователя {} отзыва {}, повтор при следующем сбросе: {}",
+                    userId, reviewId, e.getMessage());
+            entry.dirty.add(userId);
+        }
+        return 0;
+    }
+
+    //Писатели, заставшие отметку, ждут на её защёлке удаления записи из карты или снятия отметки
+    //и повторяют оценку. Изменения, сделанные до отметки, видны в dirty и сбрасываются здесь;
+    //если сброс не удался или после него появились новые изменения, отзыв остаётся в памяти
+    private void evict(long reviewId, Entry entry) {
+        CountDownLatch retiring = new CountDownLatch(1);
+        entry.retiring = retiring;
+        boolean removed = false;
+        try {
+            if (!entry.dirty.isEmpty()) {
+                flush(reviewId, entry);
+            }
+            if (entry.dirty.isEmpty()) {
+                removed = entries.remove(reviewId, entry);
+            }
+        } finally {
+            if (!removed && entry.retiring == retiring) {
+                entry.retiring = null;
+            }
+            retiring.countDown();
+        }
+    }
+
+    //Загрузка идёт вне блокировок карты; при гонке остаётся запись, попавшая в карту первой
+    private Entry getOrLoad(long reviewId) {
+        Entry entry = entries.get(reviewId);
+        if (entry != null) {
+            return entry;
+        }
+        Review review = storage.findById(reviewId);
+        if (review == null) {
+            throw new NotFoundException("Отзыв не найден");
+        }
+        storage.loadGrades(review);
+        Entry loaded = new Entry(review.getFilmId(), review.getGrades());
+        entry = entries.putIfAbsent(reviewId, loaded);
+        return entry == null ? loaded : entry;
+    }
+
+    private static int value(Boolean positive) {
+        if (positive == null) {
+            return 0;
+        }
+        return positive ? 1 : -1;
+    }
+
+    private static class Entry {
+        private final long filmId;
+        private final Map<Long, Boolean> grades;
+        private final LongAdder useful = new LongAdder();
+        private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+        //не null - запись выгружается: писатели ждут защёлку и повторяют оценку на новой записи
+        private volatile CountDownLatch retiring;
+        private volatile boolean touched = true;
+
+        Entry(long filmId, Map<Long, Boolean> grades) {
+            this.filmId = filmId;
+            this.grades = new ConcurrentHashMap<>(grades);
+            this.grades.values().forEach(positive -> useful.add(value(positive)));
+        }
+    }
+}
@@ -3,9 +3,13 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 public interface DirectorStorage extends CommonStorage<Director> {
 
     Set<Director> getDirectorsByFilm(Film film);
+
+    Map<Long, Set<Director>> getDirectorsByFilms(Collection<Long> filmIds);
 }
\ No newline at end of file
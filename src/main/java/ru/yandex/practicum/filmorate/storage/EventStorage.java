@@ -1,11 +1,18 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.enums.EventType;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface EventStorage {
     Event createEvent(Event event);
 
     List<Event> findEventsByUserID(Long id);
+
+    long getLastEventId();
+
+    //События заданного типа с id больше eventId в порядке возрастания id
+    void forEachEventAfter(long eventId, EventType eventType, Consumer<Event> consumer);
 }
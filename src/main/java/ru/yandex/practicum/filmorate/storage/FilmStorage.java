@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 //ТЗ требует этот интерфейс
 
@@ -15,6 +17,23 @@ public interface FilmStorage extends CommonStorage<Film> {
     void loadLikes(Film film);
 
     void saveLikes(Film film);
+
+    //Точечные изменения: пишут только в шард пользователя, а saveLikes перезаписывает лайки фильма во всех
+    void addLike(Long filmId, Long userId);
+
+    void removeLike(Long filmId, Long userId);
+
+    void loadLikes(List<Film> films);
+
+    //Обходит все лайки: (filmId, userId)
+    void forEachLike(BiConsumer<Long, Long> consumer);
+
+    //Число лайков и сумма FILM_ID * 1000003 + USER_ID по модулю 2^64 - для сверки копий FILMS_LIKES
+    long[] getLikesChecksum();
+
+    List<Long> findAllIds();
+
+    List<Film> findAllById(Collection<Long> ids);
     
     List<Film> findAllByYear(int year);
 
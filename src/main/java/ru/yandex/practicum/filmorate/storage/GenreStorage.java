@@ -3,8 +3,12 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 public interface GenreStorage extends CommonStorage<Genre> {
     Set<Genre> getGenresByFilm(Film film);
+
+    Map<Long, Set<Genre>> getGenresByFilms(Collection<Long> filmIds);
 }
\ No newline at end of file
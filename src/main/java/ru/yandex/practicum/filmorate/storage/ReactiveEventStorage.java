@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Event;
+
+//Неблокирующий доступ к ленте событий для реактивного режима
+
+public interface ReactiveEventStorage {
+
+    Mono<Event> createEvent(Event event);
+
+    Flux<Event> findEventsByUserID(Long id);
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+
+//Неблокирующий доступ к фильмам для реактивного режима
+
+public interface ReactiveFilmStorage {
+
+    //Фильм с рейтингом, жанрами, режиссёрами и лайками; пустой Mono, если фильма нет
+    Mono<Film> findById(Long id);
+
+    Mono<Boolean> contains(Long id);
+
+    Mono<Void> addLike(Long filmId, Long userId);
+
+    Mono<Void> removeLike(Long filmId, Long userId);
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.util.Collection;
+import java.util.List;
+
+//Неблокирующий доступ к отзывам для реактивного режима
+
+public interface ReactiveReviewStorage {
+
+    Mono<Review> findById(Long id);
+
+    //filmId == null - отзывы ко всем фильмам
+    Flux<Review> findAllByFilm(Long filmId, int count);
+
+    Flux<Review> findAllById(Collection<Long> ids);
+
+    Mono<Void> loadGrades(List<Review> reviews);
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+
+//Неблокирующий доступ к пользователям для реактивного режима
+
+public interface ReactiveUserStorage {
+
+    //Пользователь с друзьями; пустой Mono, если пользователя нет
+    Mono<User> findById(Long id);
+
+    Mono<Boolean> contains(Long id);
+}
@@ -2,12 +2,22 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Review;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ReviewStorage extends CommonStorage<Review> {
     void loadGrades(Review review);
 
-    void saveGrades(Review review);
+    //Оценки для всех отзывов списка одним запросом
+    void loadGrades(List<Review> reviews);
 
-    public List<Review> findAllByFilm(Long filmId);
+    List<Review> findAllById(Collection<Long> ids);
+
+    //Ставит или меняет оценки из grades и снимает оценки пользователей deletedUserIds пачками,
+    //после чего пересчитывает полезность отзыва
+    void saveGrades(Long reviewId, Map<Long, Boolean> grades, Collection<Long> deletedUserIds);
+
+    //Отзывы к фильму (ко всем фильмам при filmId == null) по убыванию полезности
+    List<Review> findAllByFilm(Long filmId, int count);
 }
\ No newline at end of file
@@ -8,17 +8,18 @@ import java.util.List;
 //ТЗ требует этот интерфейс
 
 public interface UserStorage extends CommonStorage<User> {
-    boolean containsEmail(String email);
+    boolean contains(Long id);
 
-    void loadFriends(User user);
+    boolean containsEmail(String email);
 
-    boolean containsFriendship(Long filterId1, Long filterId2, Boolean filterConfirmed);
+    List<Long> findAllIds();
 
-    void updateFriendship(Long id1, Long id2, boolean confirmed,  Long filterId1, Long filterId2);
+    void loadFriends(User user);
 
-    void insertFriendship(Long id, Long friendId);
+    //Возвращают false, если состояние дружбы не изменилось
+    boolean addFriendship(Long id, Long friendId);
 
-    void removeFriendship(Long filterId1, Long filterId2);
+    boolean removeFriendship(Long id, Long friendId);
 
     List<Long> getUsersFilms(Long userId);
 }
\ No newline at end of file
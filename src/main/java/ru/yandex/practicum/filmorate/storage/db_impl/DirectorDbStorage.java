@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
 
 import java.sql.PreparedStatement;
 import java.util.*;
@@ -18,6 +19,7 @@ public class DirectorDbStorage implements DirectorStorage {
     private JdbcTemplate jdbcTemplate;
 
     @Override
+    @ReplicaRead
     public Director findById(Long id) {
         String sql = "SELECT * FROM directors WHERE director_id = ?";
         List<Director> directors =  jdbcTemplate.query(sql, (rs, rowNum) ->
@@ -31,6 +33,7 @@ public class DirectorDbStorage implements DirectorStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Director> findAll() {
         String sql = "SELECT * FROM directors";
         return jdbcTemplate.query(sql, (rs, rowNum) ->
@@ -67,6 +70,7 @@ public class DirectorDbStorage implements DirectorStorage {
     }
 
     @Override
+    @ReplicaRead
     public Set<Director> getDirectorsByFilm(Film film) {
         String sql = "SELECT dir.director_id, dir.name " +
                 "FROM films_directors AS fd " +
@@ -75,4 +79,22 @@ public class DirectorDbStorage implements DirectorStorage {
         return new HashSet<>(jdbcTemplate.query(sql, (rs, rowNum) ->
                 new Director(rs.getLong("director_id"), rs.getString("name")), film.getId()));
     }
+
+    @Override
+    @ReplicaRead
+    public Map<Long, Set<Director>> getDirectorsByFilms(Collection<Long> filmIds) {
+        Map<Long, Set<Director>> result = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT fd.film_id, dir.director_id, dir.name " +
+                "FROM films_directors AS fd " +
+                "LEFT OUTER JOIN directors AS dir ON fd.director_id = dir.director_id " +
+                "WHERE fd.film_id IN (" + String.join(", ", Collections.nCopies(filmIds.size(), "?")) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            result.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>())
+                    .add(new Director(rs.getLong("director_id"), rs.getString("name")));
+        }, filmIds.toArray());
+        return result;
+    }
 }
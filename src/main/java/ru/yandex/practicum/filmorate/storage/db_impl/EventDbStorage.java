@@ -8,28 +8,31 @@ import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.enums.EventType;
 import ru.yandex.practicum.filmorate.model.enums.Operation;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class EventDbStorage implements EventStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
 
     @Autowired
-    public EventDbStorage(JdbcTemplate jdbcTemplate) {
+    public EventDbStorage(JdbcTemplate jdbcTemplate, Shards shards) {
         this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
     }
 
     @Override
     public Event createEvent(Event event) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("EVENTS")
-                .usingGeneratedKeyColumns("EVENT_ID");
-
         Map<String, Object> values = new HashMap<>();
         values.put("EVENT_TIMESTAMP", event.getTimestamp());
         values.put("USER_ID", event.getUserId());
@@ -39,14 +42,56 @@ public class EventDbStorage implements EventStorage {
         values.put("OPERATION", operation);
         values.put("ENTITY_ID", event.getEntityId());
 
-        event.setEventId(simpleJdbcInsert.executeAndReturnKey(values).longValue());
+        if (!shards.isSharded()) {
+            SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
+                    .withTableName("EVENTS")
+                    .usingGeneratedKeyColumns("EVENT_ID");
+            event.setEventId(simpleJdbcInsert.executeAndReturnKey(values).longValue());
+            return event;
+        }
+        //id событий сквозные для всех шардов, по ним LikesSnapshot догоняет лайки: их выдаёт основная база
+        long id = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR EVENT_IDS", Long.class);
+        values.put("EVENT_ID", id);
+        new SimpleJdbcInsert(shards.forUser(event.getUserId()))
+                .withTableName("EVENTS")
+                .execute(values);
+        event.setEventId(id);
         return event;
     }
 
     @Override
+    @ReplicaRead
     public List<Event> findEventsByUserID(Long id) {
         String sql = "SELECT * FROM EVENTS WHERE USER_ID = ?";
-        return jdbcTemplate.query(sql, this::mapToEvent, id);
+        return shards.forUser(id).query(sql, this::mapToEvent, id);
+    }
+
+    @Override
+    public long getLastEventId() {
+        String sql = "SELECT COALESCE(MAX(EVENT_ID), 0) FROM EVENTS";
+        long last = 0;
+        for (JdbcTemplate shard : shards.all()) {
+            last = Math.max(last, shard.queryForObject(sql, Long.class));
+        }
+        return last;
+    }
+
+    //Из нескольких шардов события собираются в память и упорядочиваются по id
+    @Override
+    public void forEachEventAfter(long eventId, EventType eventType, Consumer<Event> consumer) {
+        String sql = "SELECT * FROM EVENTS WHERE EVENT_ID > ? AND EVENT_TYPE = ? ORDER BY EVENT_ID";
+        if (!shards.isSharded()) {
+            jdbcTemplate.query(sql, rs -> {
+                consumer.accept(mapToEvent(rs, 0));
+            }, eventId, eventType.getTitle());
+            return;
+        }
+        List<Event> events = new ArrayList<>();
+        for (JdbcTemplate shard : shards.all()) {
+            events.addAll(shard.query(sql, this::mapToEvent, eventId, eventType.getTitle()));
+        }
+        events.sort(Comparator.comparing(Event::getEventId));
+        events.forEach(consumer);
     }
 
     private Event mapToEvent(ResultSet resultSet, int rowNum) throws SQLException {
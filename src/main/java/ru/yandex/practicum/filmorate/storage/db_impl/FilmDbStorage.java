@@ -12,24 +12,31 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Component
 @Primary
 @Slf4j
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
 
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, Shards shards) {
         this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
     }
 
     @Override
 
+    @ReplicaRead
     public Film findById(Long id) {
         String sql =
                 "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
@@ -54,6 +61,7 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Film> findAll() {
         String sql =
                 "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
@@ -61,6 +69,21 @@ public class FilmDbStorage implements FilmStorage {
         return jdbcTemplate.query(sql, this::mapToFilm);
     }
 
+    @Override
+    @ReplicaRead
+    public List<Film> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql =
+                "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
+                        "FROM FILMS f JOIN RATINGS r ON f.RATING_ID = r.RATING_ID " +
+                        "WHERE f.FILM_ID IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") " +
+                        "ORDER BY f.FILM_ID";
+        return jdbcTemplate.query(sql, this::mapToFilm, ids.toArray());
+    }
+
+    @ReplicaRead
     public List<Film> findAllByYear(int year) {
         String sql =
                 "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
@@ -69,6 +92,7 @@ public class FilmDbStorage implements FilmStorage {
         return jdbcTemplate.query(sql, this::mapToFilm, year);
     }
 
+    @ReplicaRead
     public List<Film> findAllByGenre(int genreId) {
         String sql =
                 "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
@@ -77,6 +101,7 @@ public class FilmDbStorage implements FilmStorage {
         return jdbcTemplate.query(sql, this::mapToFilm, genreId);
     }
 
+    @ReplicaRead
     public List<Film> findAllByGenreAndYear(int genreId, int year) {
         String sql =
                 "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
@@ -116,41 +141,113 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public void delete(Long id) {
+        //в шардах нет внешних ключей: лайки фильма и оценки его отзывов удаляются явно
+        if (shards.isSharded()) {
+            List<Long> reviewIds = jdbcTemplate.queryForList("SELECT REVIEW_ID FROM REVIEWS WHERE FILM_ID = ?",
+                    Long.class, id);
+            if (!reviewIds.isEmpty()) {
+                shards.updateAll("DELETE FROM GRADES WHERE REVIEW_ID IN (" +
+                        String.join(", ", Collections.nCopies(reviewIds.size(), "?")) + ")", reviewIds.toArray());
+            }
+            shards.updateAll("DELETE FROM FILMS_LIKES WHERE FILM_ID = ?", id);
+        }
         final String sql = "DELETE FROM FILMS WHERE FILM_ID = ?";
         jdbcTemplate.update(sql, id);
     }
 
     @Override
     public void saveLikes(Film film) {
-        jdbcTemplate.update("DELETE FROM FILMS_LIKES WHERE FILM_ID = ?", film.getId());
+        shards.updateAll("DELETE FROM FILMS_LIKES WHERE FILM_ID = ?", film.getId());
 
         String sql = "INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) VALUES(?, ?)";
-        Set<Long> likes = film.getLikes();
-        for (var like : likes) {
-            jdbcTemplate.update(sql, film.getId(), like);
-        }
+        shards.group(film.getLikes(), Long::longValue).forEach((shard, users) ->
+                shards.get(shard).batchUpdate(sql, users.stream()
+                        .map(userId -> new Object[]{film.getId(), userId})
+                        .collect(Collectors.toList())));
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        String sql = "MERGE INTO FILMS_LIKES (FILM_ID, USER_ID) KEY (FILM_ID, USER_ID) VALUES(?, ?)";
+        shards.forUser(userId).update(sql, filmId, userId);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        String sql = "DELETE FROM FILMS_LIKES WHERE FILM_ID = ? AND USER_ID = ?";
+        shards.forUser(userId).update(sql, filmId, userId);
     }
 
     @Override
+    @ReplicaRead
     public void loadLikes(Film film) {
         String sql = "SELECT USER_ID FROM FILMS_LIKES WHERE FILM_ID = ?";
-        SqlRowSet sqlRowSet = jdbcTemplate.queryForRowSet(sql, film.getId());
-        while (sqlRowSet.next()) {
-            film.addLike(sqlRowSet.getLong("USER_ID"));
+        for (JdbcTemplate shard : shards.all()) {
+            SqlRowSet sqlRowSet = shard.queryForRowSet(sql, film.getId());
+            while (sqlRowSet.next()) {
+                film.addLike(sqlRowSet.getLong("USER_ID"));
+            }
+        }
+    }
+
+    @Override
+    @ReplicaRead
+    public void loadLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.getId(), film));
+        String sql = "SELECT FILM_ID, USER_ID FROM FILMS_LIKES WHERE FILM_ID IN (" +
+                String.join(", ", Collections.nCopies(filmsById.size(), "?")) + ")";
+        Object[] ids = filmsById.keySet().toArray();
+        for (JdbcTemplate shard : shards.all()) {
+            shard.query(sql, rs -> {
+                filmsById.get(rs.getLong("FILM_ID")).addLike(rs.getLong("USER_ID"));
+            }, ids);
+        }
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Long, Long> consumer) {
+        String sql = "SELECT FILM_ID, USER_ID FROM FILMS_LIKES";
+        for (JdbcTemplate shard : shards.all()) {
+            shard.query(sql, rs -> {
+                consumer.accept(rs.getLong("FILM_ID"), rs.getLong("USER_ID"));
+            });
         }
     }
 
+    //Число и сумма складываются по шардам, сумма - по модулю 2^64, как и в одной базе
+    @Override
+    public long[] getLikesChecksum() {
+        String sql = "SELECT COUNT(*) CNT, COALESCE(SUM(FILM_ID * 1000003 + USER_ID), 0) SUM_ID FROM FILMS_LIKES";
+        long[] checksum = new long[2];
+        for (JdbcTemplate shard : shards.all()) {
+            long[] part = shard.queryForObject(sql, (rs, rowNum) ->
+                    new long[]{rs.getLong("CNT"), rs.getBigDecimal("SUM_ID").toBigInteger().longValue()});
+            checksum[0] += part[0];
+            checksum[1] += part[1];
+        }
+        return checksum;
+    }
+
+    @Override
+    public List<Long> findAllIds() {
+        String sql = "SELECT FILM_ID FROM FILMS";
+        return jdbcTemplate.queryForList(sql, Long.class);
+    }
 
     @Override
     public void createGenresByFilm(Film film) {
         String sql = "INSERT INTO FILMS_GENRES (FILM_ID, GENRE_ID) VALUES(?, ?)";
         Set<Genre> genres = film.getGenres();
-        if (genres == null) {
+        if (genres == null || genres.isEmpty()) {
             return;
         }
-        for (var genre : genres) {
-            jdbcTemplate.update(sql, film.getId(), genre.getId());
-        }
+        jdbcTemplate.batchUpdate(sql, genres.stream()
+                .map(genre -> new Object[]{film.getId(), genre.getId()})
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -161,18 +258,16 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Film> commonMovies(Long userId, Long friendId) {
-        String sql =
-                "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
-                        "FROM FILMS_LIKES fl1 JOIN FILMS_LIKES fl2 ON " +
-                        "fl1.FILM_ID  = fl2.FILM_ID " +
-                        "AND fl1.USER_ID  != fl2.USER_ID " +
-                        "AND fl1.USER_ID = ? " +
-                        "AND fl2.USER_ID = ? " +
-                        "JOIN FILMS f ON fl1.FILM_ID = f.FILM_ID " +
-                        "JOIN RATINGS r ON f.RATING_ID = r.RATING_ID ORDER BY f.FILM_ID";
-        List<Film> films = jdbcTemplate.query(sql, this::mapToFilm, userId, friendId);
-        return films;
+        //лайки пользователей могут лежать в разных шардах: пересечение считается здесь, фильмы - из основной базы
+        if (userId.equals(friendId)) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT FILM_ID FROM FILMS_LIKES WHERE USER_ID = ?";
+        Set<Long> common = new HashSet<>(shards.forUser(userId).queryForList(sql, Long.class, userId));
+        common.retainAll(shards.forUser(friendId).queryForList(sql, Long.class, friendId));
+        return findAllById(common);
     }
 
     @Override
@@ -183,6 +278,7 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Film> findFilmsByDirector(Long directorId, String sortBy) {
         String sqlByYear = "SELECT fd.film_id " +
                 "FROM films_directors AS fd " +
@@ -190,12 +286,7 @@ public class FilmDbStorage implements FilmStorage {
                 "WHERE director_id = ? " +
                 "ORDER BY films.release_date";
 
-        String sqlByLikes = "SELECT fd.film_id, COUNT(fl.user_id) AS p " +
-                "FROM films_directors AS fd " +
-                "LEFT OUTER JOIN films_likes AS fl ON fd.film_id = fl.film_id " +
-                "WHERE director_id = ? " +
-                "GROUP BY fd.film_id " +
-                "ORDER BY p DESC ";
+        String sqlByLikes = "SELECT film_id FROM films_directors WHERE director_id = ?";
 
         List<Film> films = new ArrayList<>();
         if (sortBy.equals("year")) {
@@ -205,7 +296,10 @@ public class FilmDbStorage implements FilmStorage {
             }
             return films;
         } else {
+            //лайки в шардах: число лайков каждого фильма собирается со всех шардов
             List<Long> filmsId = jdbcTemplate.query(sqlByLikes, (rs, rowNum) -> rs.getLong("film_id"), directorId);
+            Map<Long, Long> likes = countLikes(filmsId);
+            filmsId.sort(Comparator.comparing((Long id) -> likes.getOrDefault(id, 0L)).reversed());
             for (Long id : filmsId) {
                 films.add(findById(id));
             }
@@ -213,28 +307,40 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    private Map<Long, Long> countLikes(List<Long> filmIds) {
+        Map<Long, Long> likes = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return likes;
+        }
+        String sql = "SELECT FILM_ID, COUNT(*) CNT FROM FILMS_LIKES WHERE FILM_ID IN (" +
+                String.join(", ", Collections.nCopies(filmIds.size(), "?")) + ") GROUP BY FILM_ID";
+        for (JdbcTemplate shard : shards.all()) {
+            shard.query(sql, rs -> {
+                likes.merge(rs.getLong("FILM_ID"), rs.getLong("CNT"), Long::sum);
+            }, filmIds.toArray());
+        }
+        return likes;
+    }
+
     @Override
     public void createDirectorsByFilm(Film film) {
         String sql = "INSERT INTO films_directors (film_id, director_id) VALUES(?, ?)";
         Set<Director> directors = film.getDirectors();
-        if (directors == null) {
+        if (directors == null || directors.isEmpty()) {
             return;
         }
-        for (Director director : directors) {
-            jdbcTemplate.update(sql, film.getId(), director.getId());
-        }
+        jdbcTemplate.batchUpdate(sql, directors.stream()
+                .map(director -> new Object[]{film.getId(), director.getId()})
+                .collect(Collectors.toList()));
     }
 
     @Override
+    @ReplicaRead
     public List<Film> searchBy(String queryString, String searchBy) {
-        String searchByTitle = "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME  FROM films AS f LEFT OUTER JOIN " +
-                "(SELECT film_id, COUNT (*) likes_count FROM FILMS_LIKES GROUP BY film_id) " +
-                "AS l ON f.film_id = l.film_id " +
+        String searchByTitle = "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME  FROM films AS f " +
                 "LEFT OUTER JOIN ratings AS r ON f.rating_id = r.rating_id " +
                 "WHERE f.name ILIKE CONCAT('%', ?, '%')";
-        String searchByDir = "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME  FROM films AS f LEFT OUTER JOIN " +
-                "(SELECT film_id, COUNT (*) likes_count FROM FILMS_LIKES GROUP BY film_id) " +
-                "AS l ON f.film_id = l.film_id " +
+        String searchByDir = "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME  FROM films AS f " +
                 "LEFT OUTER JOIN ratings AS r ON f.rating_id = r.rating_id " +
                 "LEFT OUTER JOIN FILMS_DIRECTORS AS fd ON f.FILM_ID = fd.FILM_ID " +
                 "LEFT OUTER JOIN DIRECTORS AS d ON fd.DIRECTOR_ID = d.DIRECTOR_ID " +
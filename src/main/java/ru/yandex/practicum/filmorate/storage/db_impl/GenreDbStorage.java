@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -24,6 +25,7 @@ public class GenreDbStorage implements GenreStorage {
     }
 
     @Override
+    @ReplicaRead
     public Genre findById(Long id) {
         String sql = "SELECT * FROM GENRES WHERE GENRE_ID = ?";
         List<Genre> result = jdbcTemplate.query(sql, this::mapToGenre, id);
@@ -41,6 +43,7 @@ public class GenreDbStorage implements GenreStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Genre> findAll() {
         String sql = "SELECT * FROM GENRES ORDER BY GENRE_ID";
         return jdbcTemplate.query(sql, this::mapToGenre);
@@ -67,9 +70,25 @@ public class GenreDbStorage implements GenreStorage {
     }
 
     @Override
+    @ReplicaRead
     public Set<Genre> getGenresByFilm(Film film) {
         String sql = "SELECT g.GENRE_ID, g.NAME FROM GENRES g NATURAL JOIN FILMS_GENRES fg WHERE fg.FILM_ID = ?";
         return new HashSet<>(jdbcTemplate.query(sql, this::mapToGenre, film.getId()));
     }
 
+    @Override
+    @ReplicaRead
+    public Map<Long, Set<Genre>> getGenresByFilms(Collection<Long> filmIds) {
+        Map<Long, Set<Genre>> result = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT fg.FILM_ID, g.GENRE_ID, g.NAME FROM GENRES g NATURAL JOIN FILMS_GENRES fg " +
+                "WHERE fg.FILM_ID IN (" + String.join(", ", Collections.nCopies(filmIds.size(), "?")) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            result.computeIfAbsent(rs.getLong("FILM_ID"), id -> new HashSet<>()).add(mapToGenre(rs, 0));
+        }, filmIds.toArray());
+        return result;
+    }
+
 }
\ No newline at end of file
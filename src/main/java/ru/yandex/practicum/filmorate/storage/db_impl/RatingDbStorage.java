@@ -7,6 +7,7 @@ import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.storage.RatingStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -25,6 +26,7 @@ public class RatingDbStorage implements RatingStorage {
     }
 
     @Override
+    @ReplicaRead
     public Rating findById(Long id) {
         String sql = "SELECT * FROM RATINGS WHERE RATING_ID = ?";
         List<Rating> result = jdbcTemplate.query(sql, this::mapToRating, id);
@@ -42,6 +44,7 @@ public class RatingDbStorage implements RatingStorage {
     }
 
     @Override
+    @ReplicaRead
     public List<Rating> findAll() {
         String sql = "SELECT * FROM RATINGS ORDER BY RATING_ID";
         return jdbcTemplate.query(sql, this::mapToRating);
@@ -8,24 +8,33 @@ import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 @Primary
 public class ReviewDbStorage implements ReviewStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
 
     @Autowired
-    public ReviewDbStorage(JdbcTemplate jdbcTemplate) {
+    public ReviewDbStorage(JdbcTemplate jdbcTemplate, Shards shards) {
         this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
     }
 
     @Override
+    @ReplicaRead
     public Review findById(Long id) {
         String sql = "SELECT * FROM REVIEWS WHERE REVIEW_ID = ?";
         List<Review> result = jdbcTemplate.query(sql, this::mapToReview, id);
@@ -43,19 +52,26 @@ public class ReviewDbStorage implements ReviewStorage {
         review.setUserId(resultSet.getLong("USER_ID"));
         review.setContent(resultSet.getString("DESCRIPTION"));
         review.setIsPositive(resultSet.getBoolean("POSITIVE"));
+        review.setUseful(resultSet.getInt("USEFUL"));
         return review;
     }
 
     @Override
+    @ReplicaRead
     public List<Review> findAll() {
-        String sql = "SELECT * FROM REVIEWS";
+        String sql = "SELECT * FROM REVIEWS ORDER BY USEFUL DESC";
         return jdbcTemplate.query(sql, this::mapToReview);
     }
 
     @Override
-    public List<Review> findAllByFilm(Long filmId) {
-        String sql = "SELECT * FROM REVIEWS WHERE FILM_ID = ?";
-        return jdbcTemplate.query(sql, this::mapToReview, filmId);
+    @ReplicaRead
+    public List<Review> findAllByFilm(Long filmId, int count) {
+        if (filmId == null) {
+            String sql = "SELECT * FROM REVIEWS ORDER BY USEFUL DESC LIMIT ?";
+            return jdbcTemplate.query(sql, this::mapToReview, count);
+        }
+        String sql = "SELECT * FROM REVIEWS WHERE FILM_ID = ? ORDER BY USEFUL DESC LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapToReview, filmId, count);
     }
 
     @Override
@@ -69,6 +85,8 @@ public class ReviewDbStorage implements ReviewStorage {
         values.put("USER_ID", review.getUserId());
         values.put("DESCRIPTION", review.getContent());
         values.put("POSITIVE", review.getIsPositive());
+        //SimpleJdbcInsert передаёт все столбцы таблицы, поэтому значение по умолчанию задаётся явно
+        values.put("USEFUL", 0);
 
         Long id = simpleJdbcInsert.executeAndReturnKey(values).longValue();
         review.setReviewId(id);
@@ -88,26 +106,81 @@ public class ReviewDbStorage implements ReviewStorage {
 
     @Override
     public void delete(Long id) {
+        //в шардах нет внешних ключей: оценки отзыва удаляются явно
+        if (shards.isSharded()) {
+            shards.updateAll("DELETE FROM GRADES WHERE REVIEW_ID = ?", id);
+        }
         jdbcTemplate.update("DELETE FROM REVIEWS WHERE REVIEW_ID = ?", id);
     }
 
     @Override
+    @ReplicaRead
+    public List<Review> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM REVIEWS WHERE REVIEW_ID IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return jdbcTemplate.query(sql, this::mapToReview, ids.toArray());
+    }
+
+    //Оценки лежат в шардах оценивших пользователей, пачка делится по шардам
+    @Override
+    public void saveGrades(Long reviewId, Map<Long, Boolean> grades, Collection<Long> deletedUserIds) {
+        if (!grades.isEmpty()) {
+            String sql = "MERGE INTO GRADES (REVIEW_ID, USER_ID, POSITIVE) KEY (REVIEW_ID, USER_ID) VALUES(?, ?, ?)";
+            shards.group(grades.keySet(), Long::longValue).forEach((shard, userIds) ->
+                    shards.get(shard).batchUpdate(sql, userIds.stream()
+                            .map(userId -> new Object[]{reviewId, userId, grades.get(userId)})
+                            .collect(Collectors.toList())));
+        }
+        if (!deletedUserIds.isEmpty()) {
+            String sql = "DELETE FROM GRADES WHERE REVIEW_ID = ? AND USER_ID = ?";
+            shards.group(deletedUserIds, Long::longValue).forEach((shard, userIds) ->
+                    shards.get(shard).batchUpdate(sql, userIds.stream()
+                            .map(userId -> new Object[]{reviewId, userId})
+                            .collect(Collectors.toList())));
+        }
+        updateUseful(reviewId);
+    }
+
+    @Override
+    @ReplicaRead
     public void loadGrades(Review review) {
         String sql = "SELECT * FROM GRADES WHERE  REVIEW_ID = ?";
-        SqlRowSet sqlRowSet = jdbcTemplate.queryForRowSet(sql, review.getId());
-        while (sqlRowSet.next()) {
-            review.addGrade(sqlRowSet.getLong("USER_ID"), sqlRowSet.getBoolean("POSITIVE"));
+        for (JdbcTemplate shard : shards.all()) {
+            SqlRowSet sqlRowSet = shard.queryForRowSet(sql, review.getId());
+            while (sqlRowSet.next()) {
+                review.addGrade(sqlRowSet.getLong("USER_ID"), sqlRowSet.getBoolean("POSITIVE"));
+            }
         }
     }
 
     @Override
-    public void saveGrades(Review review) {
-        jdbcTemplate.update("DELETE FROM GRADES WHERE REVIEW_ID = ?", review.getId());
+    @ReplicaRead
+    public void loadGrades(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return;
+        }
+        Map<Long, Review> reviewsById = new HashMap<>();
+        reviews.forEach(review -> reviewsById.put(review.getId(), review));
+        String sql = "SELECT REVIEW_ID, USER_ID, POSITIVE FROM GRADES WHERE REVIEW_ID IN (" +
+                String.join(", ", Collections.nCopies(reviewsById.size(), "?")) + ")";
+        Object[] ids = reviewsById.keySet().toArray();
+        for (JdbcTemplate shard : shards.all()) {
+            shard.query(sql, rs -> {
+                reviewsById.get(rs.getLong("REVIEW_ID")).addGrade(rs.getLong("USER_ID"), rs.getBoolean("POSITIVE"));
+            }, ids);
+        }
+    }
 
-        String sql = "INSERT INTO GRADES (REVIEW_ID, USER_ID, POSITIVE) VALUES(?, ?, ?)";
-        Map<Long, Boolean>  grades = review.getGrades();
-        for (var grade : grades.entrySet()) {
-            jdbcTemplate.update(sql, review.getId(), grade.getKey(), grade.getValue());
+    //Полезность собирается со всех шардов и записывается в отзыв основной базы
+    private void updateUseful(Long reviewId) {
+        String sumSql = "SELECT COALESCE(SUM(CASE WHEN POSITIVE THEN 1 ELSE -1 END), 0) FROM GRADES WHERE REVIEW_ID = ?";
+        int useful = 0;
+        for (JdbcTemplate shard : shards.all()) {
+            useful += shard.queryForObject(sumSql, Integer.class, reviewId);
         }
+        jdbcTemplate.update("UPDATE REVIEWS SET USEFUL = ? WHERE REVIEW_ID = ?", useful, reviewId);
     }
 }
\ No newline at end of file
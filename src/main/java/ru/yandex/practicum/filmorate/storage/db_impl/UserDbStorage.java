@@ -2,15 +2,19 @@ package ru.yandex.practicum.filmorate.storage.db_impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.routing.ReplicaRead;
+import ru.yandex.practicum.filmorate.storage.sharding.Shards;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,14 +22,24 @@ import java.util.Map;
 @Component
 @Primary
 public class UserDbStorage implements UserStorage {
+    private static final int FRIENDSHIP_ATTEMPTS = 3;
+    private static final int PAIR_LOCKS = 64;
+
     private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final Object[] pairLocks = new Object[PAIR_LOCKS];
 
     @Autowired
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, Shards shards) {
         this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        for (int i = 0; i < pairLocks.length; i++) {
+            pairLocks[i] = new Object();
+        }
     }
 
     @Override
+    @ReplicaRead
     public User findById(Long id) {
         String sql = "SELECT * FROM USERS WHERE USER_ID = ?";
         List<User> result = jdbcTemplate.query(sql, this::mapToUser, id);
@@ -45,18 +59,21 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    //Строка дружбы хранится в шардах обоих пользователей, поэтому все связи пользователя - в его шарде
+    @ReplicaRead
     public void loadFriends(User user) {
         String sql =
                 "(SELECT USER_ID2 ID FROM FRIENDSHIP  WHERE USER_ID1 = ?) " +
                         "UNION " +
                         "(SELECT USER_ID1 ID FROM FRIENDSHIP  WHERE USER_ID2 = ? AND  CONFIRMED = true)";
-        SqlRowSet sqlRowSet = jdbcTemplate.queryForRowSet(sql, user.getId(), user.getId());
+        SqlRowSet sqlRowSet = shards.forUser(user.getId()).queryForRowSet(sql, user.getId(), user.getId());
         while (sqlRowSet.next()) {
             user.addFriend(sqlRowSet.getLong("id"));
         }
     }
 
     @Override
+    @ReplicaRead
     public List<User> findAll() {
         String sql = "SELECT * FROM USERS ORDER BY USER_ID";
         return jdbcTemplate.query(sql, this::mapToUser);
@@ -89,47 +106,164 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public void delete(Long id) {
+        //оценки пользователя удалятся, поэтому полезность отзывов пересчитывается заранее;
+        //оценки лежат в шарде пользователя, а отзывы - в основной базе
+        JdbcTemplate shard = shards.forUser(id);
+        List<Object[]> grades = shard.query("SELECT REVIEW_ID, POSITIVE FROM GRADES WHERE USER_ID = ?",
+                (rs, rowNum) -> new Object[]{rs.getBoolean("POSITIVE") ? 1 : -1, rs.getLong("REVIEW_ID")}, id);
+        if (!grades.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE REVIEWS SET USEFUL = USEFUL - ? WHERE REVIEW_ID = ?", grades);
+        }
+        //в шардах нет внешних ключей: данные пользователя и оценки его отзывов удаляются явно
+        if (shards.isSharded()) {
+            List<Long> reviewIds = jdbcTemplate.queryForList("SELECT REVIEW_ID FROM REVIEWS WHERE USER_ID = ?",
+                    Long.class, id);
+            if (!reviewIds.isEmpty()) {
+                shards.updateAll("DELETE FROM GRADES WHERE REVIEW_ID IN (" +
+                        String.join(", ", Collections.nCopies(reviewIds.size(), "?")) + ")", reviewIds.toArray());
+            }
+            for (String table : new String[]{"FILMS_LIKES", "GRADES", "EVENTS"}) {
+                shard.update("DELETE FROM " + table + " WHERE USER_ID = ?", id);
+            }
+            shards.updateAll("DELETE FROM FRIENDSHIP WHERE USER_ID1 = ? OR USER_ID2 = ?", id, id);
+        }
         final String sql = "DELETE FROM USERS WHERE USER_ID = ?";
         jdbcTemplate.update(sql, id);
     }
 
     @Override
-    public boolean containsEmail(String email) {
-        String sql = "SELECT * FROM USERS WHERE EMAIL = ?";
-        SqlRowSet filmRows = jdbcTemplate.queryForRowSet(sql, email);
-        return filmRows.next();
+    @ReplicaRead
+    public boolean contains(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM USERS WHERE USER_ID = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
     }
 
     @Override
-    public boolean containsFriendship(Long filterId1, Long filterId2, Boolean filterConfirmed) {
-        String sql = "SELECT * FROM FRIENDSHIP WHERE USER_ID1 = ? AND USER_ID2 = ? AND  CONFIRMED = ?";
-        SqlRowSet rows = jdbcTemplate.queryForRowSet(sql, filterId1, filterId2, filterConfirmed);
-        return rows.next();
+    public List<Long> findAllIds() {
+        String sql = "SELECT USER_ID FROM USERS";
+        return jdbcTemplate.queryForList(sql, Long.class);
     }
 
     @Override
-    public void updateFriendship(Long id1, Long id2, boolean confirmed, Long filterId1, Long filterId2) {
-        String sql =
-                "UPDATE FRIENDSHIP SET USER_ID1 = ?, USER_ID2 = ?, CONFIRMED = ? " +
-                        "WHERE USER_ID1 = ? AND USER_ID2 = ?";
-        jdbcTemplate.update(sql, id1, id2, confirmed, filterId1, filterId2);
+    public boolean containsEmail(String email) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM USERS WHERE EMAIL = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, email));
     }
 
     @Override
-    public void insertFriendship(Long id, Long friendId) {
-        String sql = "INSERT INTO FRIENDSHIP (USER_ID1, USER_ID2, CONFIRMED) VALUES(?, ?, ?)";
-        jdbcTemplate.update(sql, id, friendId, false);
+    public boolean addFriendship(Long id, Long friendId) {
+        return changeFriendship(id, friendId, this::addFriendship);
+    }
+
+    //Встречная заявка friendId, вставленная между проверкой и вставкой, нарушает уникальность пары
+    //uc_friendship_pair; повтор находит её и подтверждает. С шардами пара меняется только в шарде-владельце
+    //(changeFriendship), поэтому ограничение, действующее в одной базе, охраняет её и там
+    private boolean addFriendship(JdbcTemplate jdbcTemplate, Long id, Long friendId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tryAddFriendship(jdbcTemplate, id, friendId);
+            } catch (DuplicateKeyException e) {
+                if (attempt == FRIENDSHIP_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean tryAddFriendship(JdbcTemplate jdbcTemplate, Long id, Long friendId) {
+        //friendId уже добавил ранее в друзья - подтверждаем его заявку
+        String sqlConfirm =
+                "UPDATE FRIENDSHIP SET CONFIRMED = TRUE " +
+                        "WHERE USER_ID1 = ? AND USER_ID2 = ? AND CONFIRMED = FALSE";
+        if (jdbcTemplate.update(sqlConfirm, friendId, id) > 0) {
+            return true;
+        }
+
+        //Односторонняя связь, если нет своей заявки и подтверждённой дружбы. Неподтверждённую заявку friendId
+        //условие не проверяет: появившись после UPDATE, она нарушит uc_friendship_pair, и повтор её подтвердит
+        String sqlInsert =
+                "INSERT INTO FRIENDSHIP (USER_ID1, USER_ID2, CONFIRMED) " +
+                        "SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), FALSE WHERE NOT EXISTS (" +
+                        "SELECT 1 FROM FRIENDSHIP " +
+                        "WHERE (USER_ID1 = ? AND USER_ID2 = ?) OR (USER_ID1 = ? AND USER_ID2 = ? AND CONFIRMED = TRUE))";
+        return jdbcTemplate.update(sqlInsert, id, friendId, id, friendId, friendId, id) > 0;
     }
 
     @Override
-    public void removeFriendship(Long filterId1, Long filterId2) {
-        String sql = "DELETE FROM FRIENDSHIP WHERE USER_ID1 = ? AND USER_ID2 = ?";
-        jdbcTemplate.update(sql, filterId1, filterId2);
+    public boolean removeFriendship(Long id, Long friendId) {
+        return changeFriendship(id, friendId, this::removeFriendship);
+    }
+
+    private boolean removeFriendship(JdbcTemplate jdbcTemplate, Long id, Long friendId) {
+        //Односторонняя связь. friendId не одобрял
+        String sqlDelete = "DELETE FROM FRIENDSHIP WHERE USER_ID1 = ? AND USER_ID2 = ? AND CONFIRMED = FALSE";
+        if (jdbcTemplate.update(sqlDelete, id, friendId) > 0) {
+            return true;
+        }
+
+        //Совместная связь (кто бы её ни начал) становится заявкой от friendId
+        String sqlUnconfirm =
+                "UPDATE FRIENDSHIP SET USER_ID1 = ?, USER_ID2 = ?, CONFIRMED = FALSE " +
+                        "WHERE CONFIRMED = TRUE " +
+                        "AND ((USER_ID1 = ? AND USER_ID2 = ?) OR (USER_ID1 = ? AND USER_ID2 = ?))";
+        return jdbcTemplate.update(sqlUnconfirm, friendId, id, id, friendId, friendId, id) > 0;
+    }
+
+    //Строка дружбы хранится в шардах обоих пользователей. Владелец пары - шард пользователя с меньшим id:
+    //все изменения делаются в нём, поэтому uc_friendship_pair и условные операторы защищают пару от гонок
+    //так же, как без шардов. Копия в другом шарде - всегда строка владельца после изменения; она пишется
+    //в той же транзакции шарда-владельца, так что сбой копии откатывает изменение. Изменения одной пары
+    //в этом узле идут по очереди, иначе копия, прочитанная раньше, могла бы записаться позже
+    private boolean changeFriendship(Long id, Long friendId, FriendshipChange change) {
+        long owner = Math.min(id, friendId);
+        long other = Math.max(id, friendId);
+        JdbcTemplate ownerShard = shards.forUser(owner);
+        JdbcTemplate mirrorShard = shards.forUser(other);
+        if (mirrorShard == ownerShard) {
+            return change.apply(ownerShard, id, friendId);
+        }
+        synchronized (pairLocks[Math.floorMod(Long.hashCode(owner * 31 + other), pairLocks.length)]) {
+            return shards.inTransaction(shards.indexOf(owner), () -> {
+                if (!change.apply(ownerShard, id, friendId)) {
+                    return false;
+                }
+                Object[] row = findFriendship(ownerShard, id, friendId);
+                shards.inTransaction(shards.indexOf(other), () -> {
+                    writeFriendship(mirrorShard, id, friendId, row);
+                    return null;
+                });
+                return true;
+            });
+        }
+    }
+
+    //Строка пары {USER_ID1, USER_ID2, CONFIRMED} или null
+    private Object[] findFriendship(JdbcTemplate jdbcTemplate, Long id, Long friendId) {
+        String sql = "SELECT USER_ID1, USER_ID2, CONFIRMED FROM FRIENDSHIP " +
+                "WHERE (USER_ID1 = ? AND USER_ID2 = ?) OR (USER_ID1 = ? AND USER_ID2 = ?)";
+        List<Object[]> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new Object[]{
+                rs.getLong("USER_ID1"), rs.getLong("USER_ID2"), rs.getBoolean("CONFIRMED")},
+                id, friendId, friendId, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void writeFriendship(JdbcTemplate jdbcTemplate, Long id, Long friendId, Object[] row) {
+        jdbcTemplate.update("DELETE FROM FRIENDSHIP " +
+                "WHERE (USER_ID1 = ? AND USER_ID2 = ?) OR (USER_ID1 = ? AND USER_ID2 = ?)",
+                id, friendId, friendId, id);
+        if (row != null) {
+            jdbcTemplate.update("INSERT INTO FRIENDSHIP (USER_ID1, USER_ID2, CONFIRMED) VALUES (?, ?, ?)", row);
+        }
     }
 
     @Override
+    @ReplicaRead
     public List<Long> getUsersFilms(Long userId) {
         String sql = "SELECT film_id FROM films_likes WHERE user_id = ?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("film_id"), userId);
+        return shards.forUser(userId).query(sql, (rs, rowNum) -> rs.getLong("film_id"), userId);
+    }
+
+    private interface FriendshipChange {
+        boolean apply(JdbcTemplate jdbcTemplate, Long id, Long friendId);
     }
-}
\ No newline at end of file
+}
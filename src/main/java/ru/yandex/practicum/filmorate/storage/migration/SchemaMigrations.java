@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage.migration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.metrics.InstrumentedDataSource;
+import ru.yandex.practicum.filmorate.storage.routing.RoutingDataSource;
+
+import javax.sql.DataSource;
+
+//Миграции основной базы из db/migration при создании DataSource, до всех обёрток: раньше ReplicaRouting,
+//чтобы схема менялась только в основной базе, и мимо счётчиков запросов. Шарды мигрирует Shards.
+//filmorate.schema.migrate=false - схемой управляют снаружи.
+
+@Component
+public class SchemaMigrations implements BeanPostProcessor, Ordered {
+    public static final String LOCATION = "db/migration";
+    public static final String SHARD_LOCATION = "db/shard-migration";
+
+    private final Environment environment;
+
+    @Autowired
+    public SchemaMigrations(Environment environment) {
+        this.environment = environment;
+    }
+
+    //Мигратор с настройками приложения или null, если миграции выключены
+    public static SchemaMigrator migrator(Environment environment, String location) {
+        if (!environment.getProperty("filmorate.schema.migrate", Boolean.class, true)) {
+            return null;
+        }
+        return new SchemaMigrator(location, environment.getProperty("filmorate.schema.clean", Boolean.class, false));
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof RoutingDataSource || bean instanceof InstrumentedDataSource) {
+            return bean;
+        }
+        SchemaMigrator migrator = migrator(environment, LOCATION);
+        if (migrator != null) {
+            migrator.migrate((DataSource) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
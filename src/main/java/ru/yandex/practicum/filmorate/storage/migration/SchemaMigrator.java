@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.storage.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+//Версионные миграции схемы: скрипты <location>/V<версия>__<описание>.sql выполняются по возрастанию версии,
+//каждый один раз. Применённые версии с контрольной суммой скрипта записаны в SCHEMA_VERSION; изменённый
+//после применения скрипт - ошибка старта, правки схемы идут новой версией. Данные между запусками сохраняются.
+//DDL в H2 фиксируется сразу и в транзакцию скрипта не входит, поэтому скрипты пишутся повторяемыми
+//(IF NOT EXISTS, MERGE): после сбоя посреди скрипта он просто выполняется заново.
+//clean=true сначала удаляет из базы всё - для тестов, которые переиспользуют именованные базы в памяти.
+
+@Slf4j
+public class SchemaMigrator {
+    private static final Pattern NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String TABLE = "SCHEMA_VERSION";
+
+    private final String location;
+    private final boolean clean;
+
+    public SchemaMigrator(String location, boolean clean) {
+        this.location = location;
+        this.clean = clean;
+    }
+
+    //Возвращает число применённых миграций
+    public int migrate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (clean) {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "VERSION INT PRIMARY KEY, " +
+                "DESCRIPTION VARCHAR(200) NOT NULL, " +
+                "CHECKSUM BIGINT NOT NULL, " +
+                "INSTALLED_ON TIMESTAMP NOT NULL)");
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT VERSION, CHECKSUM FROM " + TABLE, (RowCallbackHandler) resultSet ->
+                applied.put(resultSet.getInt("VERSION"), resultSet.getLong("CHECKSUM")));
+
+        int count = 0;
+        for (Migration migration : load().values()) {
+            Long checksum = applied.get(migration.version);
+            if (checksum != null) {
+                if (checksum != migration.checksum) {
+                    throw new IllegalStateException("Миграция " + migration.resource.getFilename() +
+                            " изменена после применения; изменения схемы - только новой версией");
+                }
+                continue;
+            }
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(migration.resource);
+            populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+            populator.execute(dataSource);
+            jdbcTemplate.update("INSERT INTO " + TABLE + " (VERSION, DESCRIPTION, CHECKSUM, INSTALLED_ON) " +
+                            "VALUES (?, ?, ?, ?)",
+                    migration.version, migration.description, migration.checksum,
+                    new Timestamp(System.currentTimeMillis()));
+            log.info("Применена миграция {}: {}", location, migration.resource.getFilename());
+            count++;
+        }
+        return count;
+    }
+
+    private Map<Integer, Migration> load() {
+        Map<Integer, Migration> migrations = new TreeMap<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath*:" + location + "/V*__*.sql");
+            for (Resource resource : resources) {
+                Matcher matcher = NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                Migration migration = new Migration(Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '), resource, checksum(resource));
+                Migration previous = migrations.put(migration.version, migration);
+                if (previous != null) {
+                    throw new IllegalStateException("Две миграции версии " + migration.version + " в " + location +
+                            ": " + previous.resource.getFilename() + ", " + resource.getFilename());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return migrations;
+    }
+
+    //Контрольная сумма не зависит от переводов строк, с которыми скрипт попал в сборку
+    private static long checksum(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            String script = StreamUtils.copyToString(in, StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final Resource resource;
+        private final long checksum;
+
+        private Migration(int version, String description, Resource resource, long checksum) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+            this.checksum = checksum;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.enums.EventType;
+import ru.yandex.practicum.filmorate.model.enums.Operation;
+import ru.yandex.practicum.filmorate.storage.ReactiveEventStorage;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class EventR2dbcStorage implements ReactiveEventStorage {
+    private final DatabaseClient client;
+
+    @Autowired
+    public EventR2dbcStorage(DatabaseClient client) {
+        this.client = client;
+    }
+
+    //Драйвер r2dbc-h2 передаёт строки как CLOB, а H2 не приводит CLOB к ENUM: нужно явное приведение
+    @Override
+    public Mono<Event> createEvent(Event event) {
+        String sql = "INSERT INTO EVENTS (EVENT_TIMESTAMP, USER_ID, EVENT_TYPE, OPERATION, ENTITY_ID) " +
+                "VALUES(:timestamp, :userId, CAST(:eventType AS VARCHAR), CAST(:operation AS VARCHAR), :entityId)";
+        return client.sql(sql)
+                .filter(statement -> statement.returnGeneratedValues("EVENT_ID"))
+                .bind("timestamp", event.getTimestamp())
+                .bind("userId", event.getUserId())
+                .bind("eventType", event.getEventType().getTitle())
+                .bind("operation", event.getOperation().getTitle())
+                .bind("entityId", event.getEntityId())
+                .map(row -> R2dbcRows.getLong(row, "EVENT_ID"))
+                .one()
+                .map(id -> {
+                    event.setEventId(id);
+                    return event;
+                });
+    }
+
+    //ENUM приводится к строке в запросе: у драйвера нет кодека для этого типа
+    @Override
+    public Flux<Event> findEventsByUserID(Long id) {
+        String sql = "SELECT EVENT_ID, EVENT_TIMESTAMP, USER_ID, CAST(EVENT_TYPE AS VARCHAR) EVENT_TYPE, " +
+                "CAST(OPERATION AS VARCHAR) OPERATION, ENTITY_ID FROM EVENTS WHERE USER_ID = :id";
+        return client.sql(sql)
+                .bind("id", id)
+                .map(this::mapToEvent)
+                .all();
+    }
+
+    private Event mapToEvent(Row row) {
+        Event event = new Event();
+        event.setEventId(R2dbcRows.getLong(row, "EVENT_ID"));
+        event.setTimestamp(R2dbcRows.getLong(row, "EVENT_TIMESTAMP"));
+        event.setEventType(EventType.valueOf(row.get("EVENT_TYPE", String.class)));
+        event.setOperation(Operation.valueOf(row.get("OPERATION", String.class)));
+        event.setUserId(R2dbcRows.getLong(row, "USER_ID"));
+        event.setEntityId(R2dbcRows.getLong(row, "ENTITY_ID"));
+        return event;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class FilmR2dbcStorage implements ReactiveFilmStorage {
+    private final DatabaseClient client;
+
+    @Autowired
+    public FilmR2dbcStorage(DatabaseClient client) {
+        this.client = client;
+    }
+
+    //Жанры, режиссёры и лайки читаются параллельно в разных соединениях пула
+    @Override
+    public Mono<Film> findById(Long id) {
+        String sql =
+                "SELECT f.FILM_ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, f.RATING_ID, r.NAME R_NAME " +
+                        "FROM FILMS f JOIN RATINGS r ON f.RATING_ID = r.RATING_ID " +
+                        "WHERE f.FILM_ID = :id";
+        return client.sql(sql)
+                .bind("id", id)
+                .map(this::mapToFilm)
+                .one()
+                .flatMap(film -> Mono.zip(findGenres(id), findDirectors(id), findLikes(id))
+                        .map(data -> {
+                            film.setGenres(data.getT1());
+                            film.setDirectors(data.getT2());
+                            data.getT3().forEach(film::addLike);
+                            return film;
+                        }));
+    }
+
+    @Override
+    public Mono<Boolean> contains(Long id) {
+        return client.sql("SELECT 1 FROM FILMS WHERE FILM_ID = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> addLike(Long filmId, Long userId) {
+        return client.sql("MERGE INTO FILMS_LIKES (FILM_ID, USER_ID) KEY (FILM_ID, USER_ID) VALUES(:filmId, :userId)")
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .then();
+    }
+
+    @Override
+    public Mono<Void> removeLike(Long filmId, Long userId) {
+        return client.sql("DELETE FROM FILMS_LIKES WHERE FILM_ID = :filmId AND USER_ID = :userId")
+                .bind("filmId", filmId)
+                .bind("userId", userId)
+                .then();
+    }
+
+    private Mono<Set<Genre>> findGenres(Long filmId) {
+        String sql = "SELECT g.GENRE_ID, g.NAME FROM GENRES g NATURAL JOIN FILMS_GENRES fg WHERE fg.FILM_ID = :id";
+        return client.sql(sql)
+                .bind("id", filmId)
+                .map(row -> new Genre(R2dbcRows.getLong(row, "GENRE_ID"), row.get("NAME", String.class)))
+                .all()
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<Set<Director>> findDirectors(Long filmId) {
+        String sql = "SELECT dir.DIRECTOR_ID, dir.NAME " +
+                "FROM FILMS_DIRECTORS AS fd " +
+                "LEFT OUTER JOIN DIRECTORS AS dir ON fd.DIRECTOR_ID = dir.DIRECTOR_ID " +
+                "WHERE fd.FILM_ID = :id";
+        return client.sql(sql)
+                .bind("id", filmId)
+                .map(row -> new Director(R2dbcRows.getLong(row, "DIRECTOR_ID"), row.get("NAME", String.class)))
+                .all()
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<List<Long>> findLikes(Long filmId) {
+        return client.sql("SELECT USER_ID FROM FILMS_LIKES WHERE FILM_ID = :id")
+                .bind("id", filmId)
+                .map(row -> R2dbcRows.getLong(row, "USER_ID"))
+                .all()
+                .collectList();
+    }
+
+    private Film mapToFilm(Row row) {
+        Film film = new Film();
+        film.setId(R2dbcRows.getLong(row, "FILM_ID"));
+        film.setName(row.get("NAME", String.class));
+        film.setDescription(row.get("DESCRIPTION", String.class));
+        film.setReleaseDate(row.get("RELEASE_DATE", LocalDate.class));
+        film.setDuration(R2dbcRows.getInt(row, "DURATION"));
+        film.setMpa(new Rating(R2dbcRows.getLong(row, "RATING_ID"), row.get("R_NAME", String.class)));
+        return film;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import javax.annotation.PreDestroy;
+
+//R2DBC к той же базе H2, что и JDBC: адрес и учётная запись берутся из spring.datasource.*.
+//Фабрика соединений не регистрируется бином, иначе Spring Boot инициализировал бы схему через R2DBC
+//вместо JDBC и создал бы второй менеджер транзакций рядом с JPA.
+//Реактивные хранилища работают с одной базой, поэтому с шардами (filmorate.shards.count) режим не запускается.
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcConfig {
+    private static final String JDBC_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool pool;
+
+    @Autowired
+    public R2dbcConfig(DataSourceProperties properties,
+                       @Value("${filmorate.reactive.pool-size:10}") int poolSize,
+                       @Value("${filmorate.shards.count:0}") int shards) {
+        if (shards > 0) {
+            throw new IllegalStateException("Реактивный режим не поддерживает шарды: filmorate.shards.count=" + shards);
+        }
+        String url = properties.determineUrl();
+        if (url == null || !url.startsWith(JDBC_PREFIX)) {
+            throw new IllegalStateException("Реактивный режим поддерживает только H2: " + url);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(JDBC_PREFIX.length()))
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .initialSize(1)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.spi.Row;
+
+//Драйвер H2 отдаёт INT и BIGINT разными типами, а кодеки не приводят одно к другому
+
+final class R2dbcRows {
+    private R2dbcRows() {
+    }
+
+    static Long getLong(Row row, String name) {
+        Number value = (Number) row.get(name);
+        return value == null ? null : value.longValue();
+    }
+
+    static int getInt(Row row, String name) {
+        Number value = (Number) row.get(name);
+        return value == null ? 0 : value.intValue();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.ReactiveReviewStorage;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReviewR2dbcStorage implements ReactiveReviewStorage {
+    private final DatabaseClient client;
+
+    @Autowired
+    public ReviewR2dbcStorage(DatabaseClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Mono<Review> findById(Long id) {
+        return client.sql("SELECT * FROM REVIEWS WHERE REVIEW_ID = :id")
+                .bind("id", id)
+                .map(this::mapToReview)
+                .one();
+    }
+
+    @Override
+    public Flux<Review> findAllByFilm(Long filmId, int count) {
+        if (filmId == null) {
+            return client.sql("SELECT * FROM REVIEWS ORDER BY USEFUL DESC LIMIT :count")
+                    .bind("count", count)
+                    .map(this::mapToReview)
+                    .all();
+        }
+        return client.sql("SELECT * FROM REVIEWS WHERE FILM_ID = :filmId ORDER BY USEFUL DESC LIMIT :count")
+                .bind("filmId", filmId)
+                .bind("count", count)
+                .map(this::mapToReview)
+                .all();
+    }
+
+    //Коллекция в параметре раскрывается в список IN
+    @Override
+    public Flux<Review> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return client.sql("SELECT * FROM REVIEWS WHERE REVIEW_ID IN (:ids)")
+                .bind("ids", ids)
+                .map(this::mapToReview)
+                .all();
+    }
+
+    @Override
+    public Mono<Void> loadGrades(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, Review> reviewsById = new HashMap<>();
+        reviews.forEach(review -> reviewsById.put(review.getId(), review));
+        return client.sql("SELECT REVIEW_ID, USER_ID, POSITIVE FROM GRADES WHERE REVIEW_ID IN (:ids)")
+                .bind("ids", reviewsById.keySet())
+                .map(row -> {
+                    reviewsById.get(R2dbcRows.getLong(row, "REVIEW_ID"))
+                            .addGrade(R2dbcRows.getLong(row, "USER_ID"), row.get("POSITIVE", Boolean.class));
+                    return true;
+                })
+                .all()
+                .then();
+    }
+
+    private Review mapToReview(Row row) {
+        Review review = new Review();
+        review.setReviewId(R2dbcRows.getLong(row, "REVIEW_ID"));
+        review.setFilmId(R2dbcRows.getLong(row, "FILM_ID"));
+        review.setUserId(R2dbcRows.getLong(row, "USER_ID"));
+        review.setContent(row.get("DESCRIPTION", String.class));
+        review.setIsPositive(row.get("POSITIVE", Boolean.class));
+        review.setUseful(R2dbcRows.getInt(row, "USEFUL"));
+        return review;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.r2dbc_impl;
+
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+
+import java.time.LocalDate;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UserR2dbcStorage implements ReactiveUserStorage {
+    private final DatabaseClient client;
+
+    @Autowired
+    public UserR2dbcStorage(DatabaseClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return client.sql("SELECT * FROM USERS WHERE USER_ID = :id")
+                .bind("id", id)
+                .map(this::mapToUser)
+                .one()
+                .flatMap(this::loadFriends);
+    }
+
+    @Override
+    public Mono<Boolean> contains(Long id) {
+        return client.sql("SELECT 1 FROM USERS WHERE USER_ID = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<User> loadFriends(User user) {
+        String sql =
+                "(SELECT USER_ID2 ID FROM FRIENDSHIP  WHERE USER_ID1 = :id) " +
+                        "UNION " +
+                        "(SELECT USER_ID1 ID FROM FRIENDSHIP  WHERE USER_ID2 = :id AND  CONFIRMED = true)";
+        return client.sql(sql)
+                .bind("id", user.getId())
+                .map(row -> R2dbcRows.getLong(row, "ID"))
+                .all()
+                .doOnNext(user::addFriend)
+                .then(Mono.just(user));
+    }
+
+    private User mapToUser(Row row) {
+        User user = new User();
+        user.setId(R2dbcRows.getLong(row, "USER_ID"));
+        user.setEmail(row.get("EMAIL", String.class));
+        user.setLogin(row.get("LOGIN", String.class));
+        user.setName(row.get("NAME", String.class));
+        user.setBirthday(row.get("BIRTHDAY", LocalDate.class));
+        return user;
+    }
+}
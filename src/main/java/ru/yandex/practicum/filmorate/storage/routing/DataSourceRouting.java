@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import java.util.function.Supplier;
+
+//Куда идут соединения текущего потока. Без области всё читается и пишется в основной базе.
+//Фильтр открывает область на GET-запрос: try (DataSourceRouting.Scope scope = DataSourceRouting.replicas(position))
+//Реплика подходит, если догнала позицию последней записи клиента, а после requireLatest - текущую позицию
+//основной базы. С реплики берутся только соединения операций хранилищ, помеченных @ReplicaRead.
+//Работа, переданная в другой поток через propagate, идёт по области вызывающего потока.
+
+public final class DataSourceRouting {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> READS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private DataSourceRouting() {
+    }
+
+    public static Scope replicas(long minPosition) {
+        Scope scope = new Scope(minPosition, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    //null - область не открыта
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    //Данные нужны не старее последней записи в основную базу, например под уже выданный ETag
+    public static void requireLatest() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.latest = true;
+        }
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.get();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    //Область, если текущему потоку сейчас можно читать с реплики
+    static Scope replicaScope() {
+        Scope scope = CURRENT.get();
+        return scope != null && READS.get()[0] > 0 ? scope : null;
+    }
+
+    static void enterRead() {
+        READS.get()[0]++;
+    }
+
+    static void exitRead() {
+        READS.get()[0]--;
+    }
+
+    private static void set(Scope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final long minPosition;
+        private final Scope restore;
+        private volatile boolean latest;
+        private volatile boolean replicaUsed;
+
+        private Scope(long minPosition, Scope restore) {
+            this.minPosition = minPosition;
+            this.restore = restore;
+        }
+
+        long getMinPosition() {
+            return minPosition;
+        }
+
+        boolean isLatest() {
+            return latest;
+        }
+
+        void markReplicaUsed() {
+            replicaUsed = true;
+        }
+
+        //Хотя бы одно чтение области обслужила реплика
+        public boolean isReplicaUsed() {
+            return replicaUsed;
+        }
+
+        @Override
+        public void close() {
+            set(restore);
+        }
+    }
+}
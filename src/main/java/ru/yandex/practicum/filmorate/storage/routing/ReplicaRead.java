@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//Операция хранилища только читает и может выполняться на реплике, если это разрешает DataSourceRouting.
+//Не ставится на чтения, которым нужна согласованность с основной базой: проверки уникальности
+//и загрузку индексов в памяти.
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
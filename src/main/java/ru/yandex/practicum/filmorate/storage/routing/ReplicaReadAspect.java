@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+//Отмечает для DataSourceRouting время выполнения операций с @ReplicaRead
+
+@Aspect
+@Component
+public class ReplicaReadAspect {
+
+    @Around("@annotation(ru.yandex.practicum.filmorate.storage.routing.ReplicaRead)")
+    public Object read(ProceedingJoinPoint joinPoint) throws Throwable {
+        DataSourceRouting.enterRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRouting.exitRead();
+        }
+    }
+}
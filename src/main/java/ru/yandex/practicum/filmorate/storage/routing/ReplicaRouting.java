@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.metrics.InstrumentedDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Оборачивает DataSource приложения в RoutingDataSource, если заданы filmorate.datasource.replica.urls.
+//Выполняется после SchemaMigrations и раньше DataSourceInstrumentation, чтобы счётчики запросов видели
+//и чтения с реплик.
+//Учётные данные реплик по умолчанию те же, что у основной базы.
+
+@Component
+public class ReplicaRouting implements BeanPostProcessor, Ordered {
+    private final Environment environment;
+
+    @Autowired
+    public ReplicaRouting(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof RoutingDataSource || bean instanceof InstrumentedDataSource) {
+            return bean;
+        }
+        List<String> urls = Arrays.stream(environment.getProperty("filmorate.datasource.replica.urls", "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .collect(Collectors.toList());
+        if (urls.isEmpty()) {
+            return bean;
+        }
+        String username = environment.getProperty("filmorate.datasource.replica.username",
+                environment.getProperty("spring.datasource.username", "sa"));
+        String password = environment.getProperty("filmorate.datasource.replica.password",
+                environment.getProperty("spring.datasource.password", ""));
+        List<DataSource> replicas = urls.stream()
+                .map(url -> DataSourceBuilder.create().url(url).username(username).password(password).build())
+                .collect(Collectors.toList());
+        return new RoutingDataSource((DataSource) bean, urls, replicas);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
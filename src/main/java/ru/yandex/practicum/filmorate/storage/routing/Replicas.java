@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.metrics.InstrumentedDataSource;
+import ru.yandex.practicum.filmorate.metrics.StatementListener;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+//Позиция основной базы и синхронизация реплик RoutingDataSource. Позиция растёт после фиксации записи.
+//Своей репликации у H2 нет, поэтому при mirror=true приложение само раз в sync-ms копирует основную базу
+//в реплики (SCRIPT и его выполнение на реплике), если с прошлой копии в неё писали. На время копии реплика
+//закрыта для чтений. Внешние реплики (mirror=false) считаются догнавшими запись через max-lag-ms после неё.
+//Клиент получает позицию своей последней записи в виде токена; токен прошлого запуска не действует.
+//Метрика filmorate.datasource.replica.lag - записей основной базы, которых ещё нет на реплике.
+
+@Component
+@Slf4j
+public class Replicas implements StatementListener {
+    private static final Pattern READ = Pattern.compile("^\\s*(SELECT|EXPLAIN|SHOW|VALUES)\\b", Pattern.CASE_INSENSITIVE);
+    private static final long DRAIN_TIMEOUT_MS = 5000;
+
+    private final RoutingDataSource routing;
+    private final boolean mirror;
+    private final long maxLagMs;
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    //позиции основной базы по времени для внешних реплик
+    private final Deque<long[]> samples = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public Replicas(DataSource dataSource, MeterRegistry registry,
+                    @Value("${filmorate.datasource.replica.mirror:true}") boolean mirror,
+                    @Value("${filmorate.datasource.replica.sync-ms:1000}") long syncMs,
+                    @Value("${filmorate.datasource.replica.max-lag-ms:1000}") long maxLagMs) {
+        DataSource target = dataSource instanceof InstrumentedDataSource
+                ? ((InstrumentedDataSource) dataSource).getTargetDataSource() : dataSource;
+        this.routing = target instanceof RoutingDataSource ? (RoutingDataSource) target : null;
+        this.mirror = mirror;
+        this.maxLagMs = maxLagMs;
+        if (routing == null) {
+            return;
+        }
+        for (RoutingDataSource.Replica replica : routing.getReplicas()) {
+            Gauge.builder("filmorate.datasource.replica.lag", replica,
+                            r -> Math.max(0, routing.getPosition() - r.getSyncedPosition()))
+                    .description("Записей основной базы, которых ещё нет на реплике")
+                    .tag("replica", replica.getUrl())
+                    .register(registry);
+        }
+        if (syncMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, syncMs, syncMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return routing != null;
+    }
+
+    //Запись в транзакции видна копии только после фиксации: иначе реплику, скопированную до фиксации,
+    //сочли бы догнавшей эту запись
+    @Override
+    public void executed(String sql, List<Object> params, long nanos) {
+        if (routing == null || sql == null || READ.matcher(sql).find()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            routing.wrote();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                routing.wrote();
+            }
+        });
+    }
+
+    //Токен позиции основной базы для клиента, который только что записал
+    public String getToken() {
+        return epoch + "-" + (routing != null ? routing.getPosition() : 0);
+    }
+
+    //Позиция, которую должна догнать реплика для клиента с этим токеном; 0 - клиент не писал в этом запуске
+    public long parseToken(String token) {
+        if (token == null || !token.startsWith(epoch + "-")) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(token.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    //Синхронизация по требованию, например в тестах; обычно её выполняет фоновый поток
+    public synchronized void sync() throws SQLException, InterruptedException {
+        if (routing == null) {
+            return;
+        }
+        long position = routing.getPosition();
+        if (!mirror) {
+            sample(position);
+            return;
+        }
+        List<RoutingDataSource.Replica> stale = new ArrayList<>();
+        for (RoutingDataSource.Replica replica : routing.getReplicas()) {
+            if (replica.getSyncedPosition() < position) {
+                stale.add(replica);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        //позиция снята до копии: всё, что записано не позже неё, в копию попадёт
+        List<String> script = script();
+        for (RoutingDataSource.Replica replica : stale) {
+            copy(replica, script, position);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        scheduler.shutdownNow();
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException e) {
+            log.warn("Не удалось синхронизировать реплики: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<String> script() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = routing.getPrimary().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            while (resultSet.next()) {
+                String sql = resultSet.getString(1);
+                if (!sql.startsWith("--")) {
+                    script.add(sql);
+                }
+            }
+        }
+        return script;
+    }
+
+    private void copy(RoutingDataSource.Replica replica, List<String> script, long position)
+            throws SQLException, InterruptedException {
+        if (!replica.drain(DRAIN_TIMEOUT_MS)) {
+            log.warn("Реплика {} не освободилась за {} мс, копия отложена", replica.getUrl(), DRAIN_TIMEOUT_MS);
+            if (replica.getSyncedPosition() >= 0) {
+                replica.reopen();
+            }
+            return;
+        }
+        //при ошибке реплика остаётся закрытой до следующей удачной копии
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+        replica.synced(position);
+    }
+
+    //Внешняя реплика догнала позицию, которая была у основной базы max-lag-ms назад
+    private void sample(long position) {
+        long now = System.currentTimeMillis();
+        samples.addLast(new long[]{now, position});
+        long visible = -1;
+        while (!samples.isEmpty() && samples.peekFirst()[0] <= now - maxLagMs) {
+            visible = samples.pollFirst()[1];
+        }
+        if (visible >= 0) {
+            //последний ушедший образец ещё нужен следующей синхронизации
+            samples.addFirst(new long[]{now - maxLagMs, visible});
+            for (RoutingDataSource.Replica replica : routing.getReplicas()) {
+                replica.synced(visible);
+            }
+        }
+    }
+}
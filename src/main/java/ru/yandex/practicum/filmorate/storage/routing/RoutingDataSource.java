@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//Основная база и реплики для чтения. Соединение берётся с реплики по кругу, если DataSourceRouting
+//это разрешает, а реплика доступна и догнала нужную позицию; иначе - с основной базы.
+//Позиция - число записей в основную базу, её увеличивает Replicas после фиксации каждого изменяющего оператора.
+//Реплика помнит число выданных соединений, чтобы её можно было обновлять, когда с неё никто не читает.
+
+@Slf4j
+public class RoutingDataSource extends DelegatingDataSource implements Closeable {
+    private final List<Replica> replicas;
+    private final AtomicLong position = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RoutingDataSource(DataSource primary, List<String> urls, List<DataSource> replicas) {
+        super(primary);
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(i -> new Replica(urls.get(i), replicas.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSourceRouting.Scope scope = DataSourceRouting.replicaScope();
+        if (scope != null && !replicas.isEmpty()) {
+            long required = scope.isLatest() ? position.get() : scope.getMinPosition();
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Connection connection = replicas.get(Math.floorMod(start + i, replicas.size())).connect(required);
+                if (connection != null) {
+                    scope.markReplicaUsed();
+                    return connection;
+                }
+            }
+        }
+        return super.getConnection();
+    }
+
+    public DataSource getPrimary() {
+        return getTargetDataSource();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getPosition() {
+        return position.get();
+    }
+
+    void wrote() {
+        position.incrementAndGet();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    public static class Replica {
+        private final String url;
+        private final DataSource dataSource;
+        private final AtomicInteger inUse = new AtomicInteger();
+        //до первой синхронизации реплика пуста
+        private volatile boolean available;
+        private volatile long syncedPosition = -1;
+
+        Replica(String url, DataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getSyncedPosition() {
+            return syncedPosition;
+        }
+
+        DataSource getDataSource() {
+            return dataSource;
+        }
+
+        //null - реплика не подходит; недоступная реплика не роняет чтение, оно уходит в основную базу
+        private Connection connect(long required) {
+            if (!available || syncedPosition < required) {
+                return null;
+            }
+            inUse.incrementAndGet();
+            if (!available) {
+                inUse.decrementAndGet();
+                return null;
+            }
+            try {
+                return releasing(dataSource.getConnection());
+            } catch (SQLException e) {
+                inUse.decrementAndGet();
+                log.warn("Реплика {} недоступна: {}", url, e.getMessage());
+                return null;
+            }
+        }
+
+        //Закрывает реплику для новых чтений и ждёт возврата выданных соединений
+        boolean drain(long timeoutMs) throws InterruptedException {
+            available = false;
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (inUse.get() > 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+            return true;
+        }
+
+        void reopen() {
+            available = true;
+        }
+
+        void synced(long position) {
+            syncedPosition = position;
+            available = true;
+        }
+
+        private Connection releasing(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            inUse.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.storage.sharding;
+
+import org.springframework.stereotype.Component;
+
+//Шард по хешу id: биты перемешиваются (финализатор SplitMix64), чтобы подряд выданные id
+//расходились по шардам равномерно. При смене числа шардов данные нужно переложить заново.
+
+@Component
+public class HashShardStrategy implements ShardStrategy {
+
+    @Override
+    public int shardOf(long userId, int shards) {
+        long z = userId * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) Math.floorMod(z, (long) shards);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.storage.sharding;
+
+//Выбор шарда по id пользователя. Своя схема подключается бином с @Primary
+
+public interface ShardStrategy {
+
+    //Номер шарда из [0, shards)
+    int shardOf(long userId, int shards);
+}
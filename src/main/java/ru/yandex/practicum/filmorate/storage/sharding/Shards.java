@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.metrics.InstrumentedDataSource;
+import ru.yandex.practicum.filmorate.storage.migration.SchemaMigrations;
+import ru.yandex.practicum.filmorate.storage.migration.SchemaMigrator;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+//Шарды данных пользователей: FILMS_LIKES, FRIENDSHIP, GRADES и EVENTS лежат в базе шарда, который
+//ShardStrategy выбирает по user_id. Каталог (фильмы, пользователи, отзывы, справочники) остаётся в основной базе.
+//При filmorate.shards.count=0 шард один - основная база, и хранилища работают как без шардирования.
+//Шарды - отдельные базы H2 по шаблону filmorate.shards.url (%d - номер шарда); схему шардов при старте
+//доводят до последней версии миграции из db/shard-migration, как и основную.
+//Внешних ключей между базами нет, каскадное удаление выполняют хранилища. Запросы к шардам учитывает
+//QueryCounter, но на реплики они не уходят и позицию реплик не двигают.
+
+@Component
+@Slf4j
+public class Shards {
+    private final ShardStrategy strategy;
+    private final boolean sharded;
+    private final List<JdbcTemplate> templates;
+    private final List<TransactionTemplate> transactions;
+    private final List<DataSource> dataSources = new ArrayList<>();
+
+    @Autowired
+    public Shards(JdbcTemplate jdbcTemplate, ShardStrategy strategy, Environment environment) {
+        this.strategy = strategy;
+        int count = environment.getProperty("filmorate.shards.count", Integer.class, 0);
+        sharded = count > 0;
+        if (!sharded) {
+            templates = List.of(jdbcTemplate);
+            transactions = List.of();
+            return;
+        }
+        String url = environment.getProperty("filmorate.shards.url", "jdbc:h2:file:./db/filmorate-shard-%d");
+        String username = environment.getProperty("filmorate.shards.username",
+                environment.getProperty("spring.datasource.username", "sa"));
+        String password = environment.getProperty("filmorate.shards.password",
+                environment.getProperty("spring.datasource.password", ""));
+        SchemaMigrator migrator = SchemaMigrations.migrator(environment, SchemaMigrations.SHARD_LOCATION);
+        List<JdbcTemplate> shards = new ArrayList<>(count);
+        List<TransactionTemplate> shardTransactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(String.format(url, i))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSources.add(dataSource);
+            if (migrator != null) {
+                migrator.migrate(dataSource);
+            }
+            DataSource instrumented = new InstrumentedDataSource(dataSource, Collections::emptyList);
+            shards.add(new JdbcTemplate(instrumented));
+            shardTransactions.add(new TransactionTemplate(new DataSourceTransactionManager(instrumented)));
+        }
+        templates = Collections.unmodifiableList(shards);
+        transactions = Collections.unmodifiableList(shardTransactions);
+        log.info("Данные пользователей разделены на {} шардов: {}", count, url);
+    }
+
+    //false - шард один, это основная база
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public int indexOf(long userId) {
+        return sharded ? strategy.shardOf(userId, templates.size()) : 0;
+    }
+
+    public JdbcTemplate get(int index) {
+        return templates.get(index);
+    }
+
+    public JdbcTemplate forUser(long userId) {
+        return templates.get(indexOf(userId));
+    }
+
+    //Выполняет действие в отдельной транзакции шарда, запросы шаблона get(index) в ней участвуют.
+    //Без шардирования шард - основная база, и действие идёт в её текущей транзакции, если она есть
+    public <T> T inTransaction(int index, Supplier<T> action) {
+        if (!sharded) {
+            return action.get();
+        }
+        return transactions.get(index).execute(status -> action.get());
+    }
+
+    //Все шарды по порядку - для запросов, которые нужно разослать и собрать
+    public List<JdbcTemplate> all() {
+        return templates;
+    }
+
+    //Раскладывает значения по шардам их пользователей: номер шарда -> значения в исходном порядке
+    public <T> Map<Integer, List<T>> group(Collection<T> values, ToLongFunction<T> userId) {
+        Map<Integer, List<T>> groups = new TreeMap<>();
+        for (T value : values) {
+            groups.computeIfAbsent(indexOf(userId.applyAsLong(value)), index -> new ArrayList<>()).add(value);
+        }
+        return groups;
+    }
+
+    //Выполняет изменение во всех шардах; возвращает суммарное число строк
+    public int updateAll(String sql, Object... args) {
+        int rows = 0;
+        for (JdbcTemplate template : templates) {
+            rows += template.update(sql, args);
+        }
+        return rows;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+--Индексы под выборки по пользователю, режиссёру и дате выхода. H2 сама индексирует столбцы внешних ключей,
+--но явные индексы не зависят от ключей и от базы. Выборки отзывов по фильму уже обслуживает
+--idx_reviews_film_id_useful (film_id - первый столбец), отдельный индекс по reviews(film_id) не нужен
+CREATE INDEX IF NOT EXISTS idx_films_likes_user_id ON films_likes (user_id);
+CREATE INDEX IF NOT EXISTS idx_friendship_user_id2 ON friendship (user_id2);
+CREATE INDEX IF NOT EXISTS idx_events_user_id ON events (user_id);
+CREATE INDEX IF NOT EXISTS idx_films_directors_director_id ON films_directors (director_id);
+CREATE INDEX IF NOT EXISTS idx_films_release_date ON films (release_date);
@@ -0,0 +1,14 @@
+--Изменения схемы, сделанные до перехода на миграции: полезность отзыва в столбце reviews.useful,
+--одна оценка пользователя на отзыв (pk_grades) и сквозные id событий для шардов.
+--На базе со старой схемой оценки могли повторяться: остаётся последняя записанная,
+--и по оставшимся считается полезность
+ALTER TABLE reviews ADD COLUMN IF NOT EXISTS useful integer NOT NULL DEFAULT 0;
+DELETE FROM grades g
+WHERE EXISTS (SELECT 1 FROM grades d
+              WHERE d.review_id = g.review_id AND d.user_id = g.user_id AND d._ROWID_ > g._ROWID_);
+UPDATE reviews r SET useful = COALESCE(
+    (SELECT SUM(CASE WHEN g.positive THEN 1 ELSE -1 END) FROM grades g WHERE g.review_id = r.review_id), 0);
+ALTER TABLE grades ADD CONSTRAINT IF NOT EXISTS pk_grades PRIMARY KEY (review_id, user_id);
+CREATE INDEX IF NOT EXISTS idx_reviews_film_id_useful ON reviews (film_id, useful);
+CREATE INDEX IF NOT EXISTS idx_reviews_useful ON reviews (useful);
+CREATE SEQUENCE IF NOT EXISTS event_ids;
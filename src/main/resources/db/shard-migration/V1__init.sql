@@ -0,0 +1,29 @@
+--Таблицы данных пользователей в шарде: без внешних ключей, они указывали бы в основную базу
+CREATE TABLE IF NOT EXISTS films_likes (
+    film_id bigint   NOT NULL,
+    user_id bigint   NOT NULL,
+    CONSTRAINT pk_films_likes PRIMARY KEY (film_id,user_id)
+);
+
+CREATE TABLE IF NOT EXISTS friendship(
+    user_id1  bigint    NOT NULL,
+    user_id2  bigint    NOT NULL,
+    confirmed boolean   NOT NULL,
+    CONSTRAINT pk_friendship PRIMARY KEY (user_id1, user_id2)
+);
+
+CREATE TABLE IF NOT EXISTS grades (
+    REVIEW_ID bigint   NOT NULL,
+    user_id bigint      NOT NULL,
+    positive boolean    NOT NULL,
+    CONSTRAINT pk_grades PRIMARY KEY (REVIEW_ID, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS events(
+    event_id bigint PRIMARY KEY,
+    event_timestamp bigint  NOT NULL,
+    user_id bigint          NOT NULL,
+    event_type ENUM('LIKE', 'REVIEW', 'FRIEND') NOT NULL,
+    operation ENUM('REMOVE', 'ADD', 'UPDATE')   NOT NULL,
+    entity_id bigint NOT NULL
+);
@@ -0,0 +1,5 @@
+--Индексы под выборки по пользователю
+CREATE INDEX IF NOT EXISTS idx_films_likes_user_id ON films_likes (user_id);
+CREATE INDEX IF NOT EXISTS idx_friendship_user_id2 ON friendship (user_id2);
+CREATE INDEX IF NOT EXISTS idx_grades_user_id ON grades (user_id);
+CREATE INDEX IF NOT EXISTS idx_events_user_id ON events (user_id);
@@ -0,0 +1,13 @@
+--Одна строка дружбы на неупорядоченную пару пользователей. Встречные заявки A->B и B->A, пришедшие
+--одновременно, раньше обе проходили проверку NOT EXISTS и оставляли две неподтверждённые строки.
+--Такие пары сначала сводятся к одной подтверждённой строке (user_id1 < user_id2), затем уникальность
+--пары (least, greatest) держит база: проигравшая вставка получает ошибку и повторяется как подтверждение
+UPDATE friendship f SET confirmed = TRUE
+WHERE f.user_id1 < f.user_id2
+  AND EXISTS (SELECT 1 FROM friendship r WHERE r.user_id1 = f.user_id2 AND r.user_id2 = f.user_id1);
+DELETE FROM friendship f
+WHERE f.user_id1 > f.user_id2
+  AND EXISTS (SELECT 1 FROM friendship r WHERE r.user_id1 = f.user_id2 AND r.user_id2 = f.user_id1);
+ALTER TABLE friendship ADD COLUMN IF NOT EXISTS pair_low bigint GENERATED ALWAYS AS (LEAST(user_id1, user_id2));
+ALTER TABLE friendship ADD COLUMN IF NOT EXISTS pair_high bigint GENERATED ALWAYS AS (GREATEST(user_id1, user_id2));
+ALTER TABLE friendship ADD CONSTRAINT IF NOT EXISTS uc_friendship_pair UNIQUE (pair_low, pair_high);
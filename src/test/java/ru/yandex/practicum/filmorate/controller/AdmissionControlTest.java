@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.yandex.practicum.filmorate.controller.AdmissionControl.Group;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdmissionControl admission = new AdmissionControl(new MockEnvironment()
+            .withProperty("filmorate.admission.search.rate", "1")
+            .withProperty("filmorate.admission.search.burst", "2")
+            .withProperty("filmorate.admission.ranking.concurrency", "1")
+            .withProperty("filmorate.admission.ranking.queue", "1")
+            .withProperty("filmorate.admission.ranking.queue-timeout-ms", "200")
+            .withProperty("filmorate.admission.write.concurrency", "1")
+            .withProperty("filmorate.admission.write.queue", "0"), registry);
+
+    @Test
+    void classify() {
+        assertEquals(Group.SEARCH, admission.classify("GET", "/films/search", false));
+        assertEquals(Group.RECOMMENDATIONS, admission.classify("GET", "/users/1/recommendations", false));
+        assertEquals(Group.RECOMMENDATIONS, admission.classify("GET", "/films/1/similar", false));
+        assertEquals(Group.RANKING, admission.classify("GET", "/films/popular", false));
+        assertEquals(Group.RANKING, admission.classify("GET", "/films/director/1", false));
+        assertEquals(Group.RANKING, admission.classify("GET", "/reviews", true));
+        assertEquals(Group.READ, admission.classify("GET", "/reviews", false));
+        assertEquals(Group.READ, admission.classify("GET", "/films/1", false));
+        assertEquals(Group.WRITE, admission.classify("PUT", "/films/1/like/1", false));
+        assertNull(admission.classify("GET", "/actuator/prometheus", false));
+        assertNull(admission.classify("DELETE", "/admin/slow-queries", false));
+    }
+
+    @Test
+    void rateLimited() {
+        admission.admit(Group.SEARCH).release();
+        admission.admit(Group.SEARCH).release();
+        AdmissionControl.RejectedException e = assertThrows(AdmissionControl.RejectedException.class,
+                () -> admission.admit(Group.SEARCH));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatus());
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(2, count("search", "admitted"));
+        assertEquals(1, count("search", "rate_limited"));
+    }
+
+    @Test
+    void queuedUntilReleased() throws Exception {
+        AdmissionControl.Permit first = admission.admit(Group.RANKING);
+        CompletableFuture<AdmissionControl.Permit> second = CompletableFuture.supplyAsync(
+                () -> admission.admit(Group.RANKING));
+        while (registry.get("filmorate.admission.waiting").tag("group", "ranking").gauge().value() < 1) {
+            Thread.sleep(1);
+        }
+        first.release();
+        first.release();
+
+        second.get(1, TimeUnit.SECONDS).release();
+        assertEquals(1, count("ranking", "admitted"));
+        assertEquals(1, count("ranking", "queued"));
+        //повторный release первого места не добавил лишнего
+        admission.admit(Group.RANKING);
+        assertThrows(AdmissionControl.RejectedException.class, () -> admission.admit(Group.RANKING));
+        assertEquals(1, count("ranking", "overloaded"));
+    }
+
+    @Test
+    void shedWithoutQueue() {
+        admission.admit(Group.WRITE);
+        AdmissionControl.RejectedException e = assertThrows(AdmissionControl.RejectedException.class,
+                () -> admission.admit(Group.WRITE));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        //чтения не ограничены
+        assertDoesNotThrow(() -> admission.admit(Group.READ));
+    }
+
+    @Test
+    void filterRejects() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter(admission, new ObjectMapper());
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/films/search"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/search"), response, chain);
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("error"));
+        assertNull(chain.getRequest());
+    }
+
+    private double count(String group, String outcome) {
+        return registry.get("filmorate.admission").tag("group", group).tag("outcome", outcome).counter().count();
+    }
+}
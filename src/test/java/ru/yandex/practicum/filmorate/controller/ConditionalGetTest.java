@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.metrics.QueryCounter;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ConditionalGetTest {
+    private final MockMvc mvc;
+    private final DirectorService directorService;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @Test
+    void genresNotModified() throws Exception {
+        String etag = etag("/genres");
+        assertEquals(etag, etag("/genres/1"));
+
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            mvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, must-revalidate"));
+            assertEquals(0, scope.getCount());
+        }
+    }
+
+    @Test
+    void directorChangeInvalidates() throws Exception {
+        Director director = directorService.create(new Director(null, "Director"));
+        String etag = etag("/directors");
+
+        director.setName("Other");
+        directorService.update(director);
+        mvc.perform(get("/directors").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, etag("/directors"));
+    }
+
+    @Test
+    void filmLikeInvalidates() throws Exception {
+        Film film = filmService.create(getFilm(1));
+        Film other = filmService.create(getFilm(2));
+        User user = new User();
+        user.setEmail("user@ya.ru");
+        user.setLogin("user");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        user = userService.create(user);
+        String etag = etag("/films/" + film.getId());
+        String otherEtag = etag("/films/" + other.getId());
+
+        filmService.addLike(film.getId(), user.getId());
+        mvc.perform(get("/films/" + film.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mvc.perform(get("/films/" + other.getId()).header(HttpHeaders.IF_NONE_MATCH, otherEtag))
+                .andExpect(status().isNotModified());
+        assertNull(mvc.perform(get("/films")).andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        Rating rating = new Rating();
+        rating.setId(1L);
+        film.setMpa(rating);
+        return film;
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class FilmJsonCacheTest {
+    private final MockMvc mvc;
+    private final ObjectMapper objectMapper;
+    private final FilmService filmService;
+    private final GenreService genreService;
+    private final UserService userService;
+    private final MeterRegistry registry;
+
+    @Test
+    void sameJsonAsJackson() throws Exception {
+        Film film = filmService.create(getFilm(1));
+        String expected = objectMapper.writeValueAsString(filmService.findById(film.getId()));
+
+        assertEquals(expected, getBody("/films/" + film.getId()));
+        assertEquals(expected, getBody("/films/" + film.getId()));
+        assertEquals("[" + expected + "]", getBody("/films"));
+        assertEquals(2, hits());
+    }
+
+    @Test
+    void likeAndGenreChangesInvalidate() throws Exception {
+        Film film = filmService.create(getFilm(1));
+        User user = getUser();
+        getBody("/films/" + film.getId());
+
+        filmService.addLike(film.getId(), user.getId());
+        mvc.perform(get("/films/" + film.getId()))
+                .andExpect(jsonPath("$.likesCount").value(1));
+
+        Genre genre = genreService.findById(1L);
+        genre.setName("Renamed");
+        genreService.update(genre);
+        MvcResult popular = mvc.perform(get("/films/popular"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(popular))
+                .andExpect(jsonPath("$[0].genres[0].name").value("Renamed"));
+        assertEquals(0, hits());
+    }
+
+    @Test
+    void writeBeforeAsyncDispatchNotCached() throws Exception {
+        Film film = filmService.create(getFilm(1));
+        User user = getUser();
+        MvcResult result = mvc.perform(get("/films/popular"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //фильм прочитан до лайка, а JSON пишется при повторной диспетчеризации уже после него
+        result.getAsyncResult();
+        filmService.addLike(film.getId(), user.getId());
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$[0].likesCount").value(0));
+        mvc.perform(get("/films/" + film.getId()))
+                .andExpect(jsonPath("$.likesCount").value(1));
+    }
+
+    private User getUser() {
+        User user = new User();
+        user.setEmail("user@ya.ru");
+        user.setLogin("user");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userService.create(user);
+    }
+
+    private double hits() {
+        return registry.get("filmorate.films.json-cache").tag("result", "hit").counter().count();
+    }
+
+    private String getBody(String url) throws Exception {
+        return mvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        Rating rating = new Rating();
+        rating.setId(1L);
+        film.setMpa(rating);
+        film.setGenres(Set.of(new Genre(1L)));
+        return film;
+    }
+}
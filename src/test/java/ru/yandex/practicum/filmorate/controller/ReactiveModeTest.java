@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.recommendation.LikesIndex;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//тип приложения задаётся явно: тестовый загрузчик выбирает его до чтения application-reactive.properties
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-test;DB_CLOSE_DELAY=-1",
+        "filmorate.schema.clean=true"})
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReactiveModeTest {
+    private final WebTestClient client;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ReviewService reviewService;
+    private final LikesIndex likesIndex;
+
+    @Test
+    void filmAndLikes() {
+        Film film = filmService.create(getFilm());
+        User user = userService.create(getUser());
+
+        client.put().uri("/films/{id}/like/{userId}", film.getId(), user.getId()).exchange()
+                .expectStatus().isOk();
+        client.get().uri("/films/{id}", film.getId()).exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Film")
+                .jsonPath("$.mpa.name").isEqualTo("G")
+                .jsonPath("$.likesCount").isEqualTo(1)
+                .jsonPath("$.likes[0]").isEqualTo(user.getId());
+        assertArrayEquals(new long[]{user.getId()}, likesIndex.getUsers(film.getId()));
+
+        client.delete().uri("/films/{id}/like/{userId}", film.getId(), user.getId()).exchange()
+                .expectStatus().isOk();
+        assertEquals(0, likesIndex.getUsers(film.getId()).length);
+        client.get().uri("/users/{id}/feed", user.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].eventType").isEqualTo("LIKE")
+                .jsonPath("$[0].operation").isEqualTo("ADD")
+                .jsonPath("$[1].operation").isEqualTo("REMOVE")
+                .jsonPath("$[1].entityId").isEqualTo(film.getId());
+    }
+
+    @Test
+    void notFound() {
+        Film film = filmService.create(getFilm());
+
+        client.get().uri("/films/999").exchange().expectStatus().isNotFound();
+        client.get().uri("/users/999").exchange().expectStatus().isNotFound();
+        client.get().uri("/reviews/999").exchange().expectStatus().isNotFound();
+        client.put().uri("/films/{id}/like/999", film.getId()).exchange().expectStatus().isNotFound();
+        client.put().uri("/films/999/like/1").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void reviewsWithGrades() {
+        Film film = filmService.create(getFilm());
+        User user = userService.create(getUser());
+        Review review = new Review();
+        review.setContent("Review");
+        review.setIsPositive(true);
+        review.setFilmId(film.getId());
+        review.setUserId(user.getId());
+        review = reviewService.create(review);
+
+        client.put().uri("/reviews/{id}/like/{userId}", review.getId(), user.getId()).exchange()
+                .expectStatus().isOk();
+        client.get().uri("/reviews/{id}", review.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content").isEqualTo("Review")
+                .jsonPath("$.useful").isEqualTo(1);
+        client.get().uri("/reviews?filmId={id}", film.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].reviewId").isEqualTo(review.getId())
+                .jsonPath("$[0].useful").isEqualTo(1);
+    }
+
+    //Методы без реактивной реализации работают через блокирующие сервисы с тем же контрактом
+    @Test
+    void bridgedEndpoints() {
+        User user = client.post().uri("/users").bodyValue(getUser()).exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class).returnResult().getResponseBody();
+        assertNotNull(user);
+        client.get().uri("/users/{id}", user.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.login").isEqualTo("user");
+
+        String etag = client.get().uri("/genres").exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(etag);
+        client.get().uri("/genres").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+    }
+
+    private Film getFilm() {
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        return film;
+    }
+
+    private User getUser() {
+        User user = new User();
+        user.setEmail("user@ya.ru");
+        user.setLogin("user");
+        user.setName("User");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class SimilarFilmsTest {
+    private final MockMvc mvc;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @Test
+    void similarFilmsBySimilarity() throws Exception {
+        List<Long> films = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            films.add(filmService.create(getFilm(i)).getId());
+        }
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userService.create(getUser(i)).getId());
+        }
+        //с первым фильмом второй делит двух лайкнувших, третий - одного, четвёртый - никого
+        filmService.addLike(films.get(0), users.get(0));
+        filmService.addLike(films.get(0), users.get(1));
+        filmService.addLike(films.get(0), users.get(2));
+        filmService.addLike(films.get(2), users.get(0));
+        filmService.addLike(films.get(1), users.get(1));
+        filmService.addLike(films.get(1), users.get(2));
+
+        perform("/films/" + films.get(0) + "/similar")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(films.get(1)))
+                .andExpect(jsonPath("$[1].id").value(films.get(2)));
+        perform("/films/" + films.get(0) + "/similar?count=1")
+                .andExpect(jsonPath("$.length()").value(1));
+        perform("/films/" + films.get(3) + "/similar")
+                .andExpect(jsonPath("$.length()").value(0));
+        perform("/films/9999/similar")
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions perform(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result));
+    }
+
+    private static Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        return film;
+    }
+
+    private static User getUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@ya.ru");
+        user.setLogin("user" + i);
+        user.setName("user" + i);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import ru.yandex.practicum.filmorate.controller.WorkloadExecutors.Workload;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadExecutorsTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WorkloadExecutors executors;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executors != null) {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    void runsOnWorkloadThread() throws Exception {
+        executors = create(true);
+
+        String thread = executors.submit(Workload.SEARCH, () -> Thread.currentThread().getName()).get();
+        assertTrue(thread.startsWith("filmorate-search-"));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        executors = create(true);
+
+        executors.submit(Workload.RANKING, this::block);
+        executors.submit(Workload.RANKING, this::block);
+        assertThrows(RejectedExecutionException.class, () -> executors.submit(Workload.RANKING, this::block));
+        //другой класс нагрузки не затронут
+        assertDoesNotThrow(() -> executors.submit(Workload.SEARCH, () -> 1).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timesOut() {
+        executors = create(true);
+
+        CompletableFuture<Integer> future = executors.submit(Workload.RANKING, this::block);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void disabledRunsInline() throws Exception {
+        executors = create(false);
+
+        String thread = executors.submit(Workload.SEARCH, () -> Thread.currentThread().getName()).get();
+        assertEquals(Thread.currentThread().getName(), thread);
+    }
+
+    private int block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+
+    private WorkloadExecutors create(boolean enabled) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("filmorate.async.enabled", String.valueOf(enabled))
+                .withProperty("filmorate.async.ranking.threads", "1")
+                .withProperty("filmorate.async.ranking.queue", "1")
+                .withProperty("filmorate.async.ranking.timeout-ms", "100");
+        return new WorkloadExecutors(environment, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.generator;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class DataGeneratorTest {
+    private static final int SCALE = 300;
+
+    private final DataGenerator generator;
+    private final FilmStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generate() {
+        Map<String, Long> rows = generator.generate(GeneratorConfig.ofScale(SCALE, 7));
+
+        for (Map.Entry<String, Long> entry : rows.entrySet()) {
+            assertEquals(entry.getValue(), count(entry.getKey()), entry.getKey());
+        }
+        assertEquals(SCALE, rows.get("USERS"));
+        assertTrue(rows.get("FILMS_LIKES") > 0);
+        assertEquals(rows.get("FILMS_LIKES"), count("EVENTS WHERE EVENT_TYPE = 'LIKE'"));
+        assertEquals(0, count("REVIEWS r WHERE USEFUL <> (SELECT COALESCE(SUM(CASE WHEN POSITIVE THEN 1 ELSE -1 END), 0) " +
+                "FROM GRADES g WHERE g.REVIEW_ID = r.REVIEW_ID)"));
+        assertEquals(0, count("FRIENDSHIP f WHERE EXISTS (SELECT 1 FROM FRIENDSHIP b " +
+                "WHERE b.USER_ID1 = f.USER_ID2 AND b.USER_ID2 = f.USER_ID1)"));
+
+        //популярность по Ципфу: у первого фильма лайков больше, чем у любого из последней сотни
+        long first = count("FILMS_LIKES WHERE FILM_ID = 1");
+        long tailMax = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(CNT), 0) FROM (SELECT COUNT(*) CNT " +
+                "FROM FILMS_LIKES WHERE FILM_ID > ? GROUP BY FILM_ID)", Long.class, rows.get("FILMS") - 100);
+        assertTrue(first > tailMax);
+    }
+
+    @Test
+    void sameSeedSameDataForBothLoaders() {
+        GeneratorConfig config = GeneratorConfig.ofScale(SCALE, 11);
+        Map<String, Long> csvRows = generator.generate(config);
+        long[] csvLikes = filmStorage.getLikesChecksum();
+
+        for (String table : new String[]{"EVENTS", "GRADES", "REVIEWS", "FRIENDSHIP", "FILMS_LIKES",
+                "FILMS_DIRECTORS", "FILMS_GENRES", "FILMS", "DIRECTORS", "USERS"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        config.setBulk(false);
+        Map<String, Long> batchRows = generator.generate(config);
+
+        assertEquals(csvRows, batchRows);
+        assertArrayEquals(csvLikes, filmStorage.getLikesChecksum());
+    }
+
+    private long count(String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+    }
+}
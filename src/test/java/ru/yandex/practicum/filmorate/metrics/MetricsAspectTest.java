@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.db_impl.GenreDbStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@AutoConfigureMetrics
+class MetricsAspectTest {
+    private final GenreDbStorage genreStorage;
+    private final GenreService genreService;
+    private final UserService userService;
+    private final MeterRegistry registry;
+    private final PrometheusMeterRegistry prometheusRegistry;
+
+    @Test
+    void storageCallsAndRows() {
+        genreStorage.findAll();
+        genreStorage.findAll();
+
+        Timer timer = registry.get("filmorate.storage")
+                .tags("operation", "GenreDbStorage.findAll", "outcome", "success").timer();
+        assertEquals(2, timer.count());
+        DistributionSummary rows = registry.get("filmorate.storage.rows")
+                .tag("operation", "GenreDbStorage.findAll").summary();
+        assertEquals(2, rows.count());
+        assertEquals(12, rows.totalAmount());
+    }
+
+    @Test
+    void serviceErrors() {
+        assertThrows(NotFoundException.class, () -> userService.findById(1000L));
+
+        assertEquals(1, registry.get("filmorate.service")
+                .tags("operation", "UserService.findById", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void prometheusFormat() {
+        genreService.findAll();
+
+        String scrape = prometheusRegistry.scrape();
+        assertTrue(scrape.contains("filmorate_service_seconds_count{operation=\"GenreService.findAll\",outcome=\"success\""));
+        assertTrue(scrape.contains("quantile=\"0.999\""));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class QueryCounterTest {
+    private final MockMvc mvc;
+    private final FilmService filmService;
+    private final GenreService genreService;
+
+    @Test
+    void scopeCountsStatements() {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            genreService.findAll();
+            try (QueryCounter.Scope inner = QueryCounter.start()) {
+                genreService.findAll();
+                assertEquals(1, inner.getCount());
+            }
+            assertEquals(2, scope.getCount());
+        }
+        assertNull(QueryCounter.current());
+    }
+
+    @Test
+    void headers() throws Exception {
+        MvcResult result = mvc.perform(get("/genres")).andExpect(status().isOk()).andReturn();
+
+        assertEquals("1", result.getResponse().getHeader(QueryCountFilter.COUNT_HEADER));
+        assertNotNull(result.getResponse().getHeader(QueryCountFilter.TIME_HEADER));
+    }
+
+    @Test
+    void filmsWithoutNPlusOne() throws Exception {
+        createFilms(2);
+        int few = queryCount("/films");
+        createFilms(10);
+        assertEquals(few, queryCount("/films"));
+        assertTrue(few <= 4);
+    }
+
+    @Test
+    void asyncEndpointCountsWorkerQueries() throws Exception {
+        createFilms(3);
+        MvcResult started = mvc.perform(get("/films/popular")).andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+        assertEquals(String.valueOf(queryCount("/films")), result.getResponse().getHeader(QueryCountFilter.COUNT_HEADER));
+    }
+
+    private int queryCount(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        return Integer.parseInt(result.getResponse().getHeader(QueryCountFilter.COUNT_HEADER));
+    }
+
+    private void createFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setName("Film" + i);
+            film.setDescription("DESCRIPTION" + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(100);
+            Rating rating = new Rating();
+            rating.setId(1L);
+            film.setMpa(rating);
+            film.setGenres(Set.of(new Genre(1L + i % 6)));
+            filmService.create(film);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.queries.slow-ms=0")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class SlowQueryLogTest {
+    private final SlowQueryLog slowQueryLog;
+    private final UserService userService;
+    private final MockMvc mvc;
+
+    @Test
+    void fingerprint() {
+        assertEquals("SELECT * FROM FILMS WHERE FILM_ID IN (?...) AND NAME = ? LIMIT ?",
+                SlowQueryLog.fingerprint("SELECT *\n  FROM FILMS WHERE FILM_ID IN (?, ?,?) AND NAME = 'it''s' LIMIT 10"));
+        assertEquals(SlowQueryLog.fingerprint("SELECT * FROM T2 WHERE ID IN (?, ?)"),
+                SlowQueryLog.fingerprint("SELECT * FROM T2 WHERE ID IN (?, ?, ?, ?)"));
+    }
+
+    @Test
+    void capturesParamsAndPlan() throws Exception {
+        slowQueryLog.clear();
+        assertFalse(userService.contains(42L));
+
+        SlowQueryLog.Sample sample = findSample("FROM USERS WHERE USER_ID");
+        assertEquals(List.of("42"), sample.getParams());
+        for (int i = 0; i < 100 && sample.getPlan() == null; i++) {
+            Thread.sleep(50);
+        }
+        assertNotNull(sample.getPlan());
+        assertTrue(sample.getPlan().contains("USERS"));
+    }
+
+    @Test
+    void endpoint() throws Exception {
+        userService.findAll();
+
+        mvc.perform(get("/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fingerprint").isString())
+                .andExpect(jsonPath("$[0].worst.sql").isString());
+    }
+
+    private SlowQueryLog.Sample findSample(String sqlPart) {
+        return slowQueryLog.getOffenders().stream()
+                .filter(offender -> offender.getFingerprint().contains(sqlPart))
+                .findFirst()
+                .orElseThrow()
+                .getWorst();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class FilmServiceTransactionTest {
+    private final FilmService filmService;
+    private final ChangeVersions versions;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    void createRolledBackWhenGenresFail() {
+        long sequence = versions.getSequence();
+        Film film = getFilm();
+        film.setGenres(Set.of(new Genre(1L), new Genre(999L)));
+
+        assertThrows(DataAccessException.class, () -> filmService.create(film));
+
+        assertTrue(filmService.findAll().isEmpty());
+        assertEquals(sequence, versions.getSequence());
+    }
+
+    @Test
+    void versionChangedAfterCommit() {
+        long sequence = versions.getSequence();
+        Film film = new TransactionTemplate(transactionManager).execute(status -> {
+            Film created = filmService.create(getFilm());
+            assertEquals(sequence, versions.getSequence());
+            return created;
+        });
+
+        assertTrue(versions.getSequence() > sequence);
+        assertEquals(1, filmService.findById(film.getId()).getGenres().size());
+    }
+
+    private static Film getFilm() {
+        Film film = new Film();
+        film.setName("film");
+        film.setDescription("description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        film.setGenres(Set.of(new Genre(1L)));
+        return film;
+    }
+}
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.recommendation.ItemSimilarityModel;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "filmorate.recommendations.refresh-delay-ms=3600000")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class RecommendationsServiceTest {
+    private static final int USERS = 12;
+    private static final int FILMS = 15;
+
+    private final RecommendationsService recommendationsService;
+    private final UserService userService;
+    private final FilmService filmService;
+    private final ItemSimilarityModel similarityModel;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> filmIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userService.create(getUser(i)).getId());
+        }
+        for (int i = 0; i < FILMS; i++) {
+            filmIds.add(filmService.create(getFilm(i)).getId());
+        }
+    }
+
+    @Test
+    void getRecommendedFilms() {
+        like(0, 0, 1, 2);
+        like(1, 0, 1, 3, 4);
+        like(2, 0, 5);
+
+        Set<Long> actual = ids(recommendationsService.getRecommendedFilms(userIds.get(0)));
+        assertEquals(Set.of(filmIds.get(3), filmIds.get(4)), actual);
+        assertTrue(recommendationsService.getRecommendedFilms(userIds.get(3)).isEmpty());
+    }
+
+    @Test
+    void getRecommendedFilmsRanked() {
+        like(0, 0);
+        like(1, 0, 3, 4);
+        like(2, 0, 4);
+        like(3, 0, 4, 5);
+
+        List<Long> actual = recommendationsService.getRecommendedFilms(userIds.get(0)).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(filmIds.get(4), filmIds.get(3), filmIds.get(5)), actual);
+    }
+
+    @Test
+    void getRecommendedFilmsSameAsFullScan() {
+        Random random = new Random(42);
+        for (int user = 0; user < USERS; user++) {
+            for (int film = 0; film < FILMS; film++) {
+                if (random.nextInt(4) == 0) {
+                    like(user, film);
+                }
+            }
+        }
+        filmService.removeLike(filmIds.get(0), userIds.get(0));
+        filmService.addLike(filmIds.get(0), userIds.get(0));
+
+        for (Long userId : userIds) {
+            assertEquals(fullScan(userId), ids(recommendationsService.getRecommendedFilms(userId)),
+                    "Рекомендации для пользователя " + userId);
+        }
+    }
+
+    @Test
+    void getRecommendedFilmsFromStore() {
+        like(0, 0, 1);
+        like(1, 0, 1, 2);
+        assertEquals(Set.of(filmIds.get(2)), ids(recommendationsService.getRecommendedFilms(userIds.get(0))));
+
+        //лайк соседа: до фонового пересчёта отдаётся прежний результат
+        like(1, 3);
+        assertEquals(Set.of(filmIds.get(2)), ids(recommendationsService.getRecommendedFilms(userIds.get(0))));
+        recommendationsService.refreshDirtyUsers();
+        assertEquals(Set.of(filmIds.get(2), filmIds.get(3)),
+                ids(recommendationsService.getRecommendedFilms(userIds.get(0))));
+
+        //собственный лайк виден сразу
+        like(0, 2);
+        assertEquals(Set.of(filmIds.get(3)), ids(recommendationsService.getRecommendedFilms(userIds.get(0))));
+    }
+
+    @Test
+    void findSimilar() {
+        like(0, 0, 1);
+        like(1, 0, 1);
+        like(2, 0, 2);
+        like(3, 3);
+        similarityModel.rebuild();
+
+        List<Long> actual = filmService.findSimilar(filmIds.get(0), 10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(filmIds.get(1), filmIds.get(2)), actual);
+        assertEquals(1, filmService.findSimilar(filmIds.get(0), 1).size());
+        assertTrue(filmService.findSimilar(filmIds.get(3), 10).isEmpty());
+    }
+
+    //Прежний алгоритм: полный перебор пользователей
+    private Set<Long> fullScan(Long userId) {
+        Map<Long, List<Long>> filmsOfUsers = new HashMap<>();
+        for (User user : userService.findAll()) {
+            filmsOfUsers.put(user.getId(), userService.getUsersFilms(user.getId()));
+        }
+
+        long maxMatches = 0;
+        Set<Long> similarity = new HashSet<>();
+        for (Long id : filmsOfUsers.keySet()) {
+            if (id.equals(userId)) continue;
+
+            long numberOfMatches = filmsOfUsers.get(id).stream()
+                    .filter(filmId -> filmsOfUsers.get(userId).contains(filmId)).count();
+
+            if (numberOfMatches == maxMatches & numberOfMatches != 0) {
+                similarity.add(id);
+            }
+
+            if (numberOfMatches > maxMatches) {
+                maxMatches = numberOfMatches;
+                similarity = new HashSet<>();
+                similarity.add(id);
+            }
+        }
+
+        if (maxMatches == 0) return new HashSet<>();
+        return similarity.stream().flatMap(idUser -> filmsOfUsers.get(idUser).stream())
+                .filter(filmId -> !filmsOfUsers.get(userId).contains(filmId))
+                .collect(Collectors.toSet());
+    }
+
+    private void like(int user, int... films) {
+        for (int film : films) {
+            filmService.addLike(filmIds.get(film), userIds.get(user));
+        }
+    }
+
+    private Set<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toSet());
+    }
+
+    private User getUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@ya.ru");
+        user.setLogin("usr" + i);
+        user.setName("User" + i);
+        user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+        return user;
+    }
+
+    private Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        return film;
+    }
+}
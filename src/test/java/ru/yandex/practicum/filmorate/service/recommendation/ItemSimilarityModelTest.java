@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ItemSimilarityModelTest {
+    private final LikesIndex likesIndex = new LikesIndex(mock(FilmStorage.class), mock(LikesSnapshot.class));
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    private final ScoringPool pool = new ScoringPool(2, 2, 0);
+
+    @BeforeEach
+    void setUp() {
+        //фильм 1 - пользователи 1, 2, 3; фильм 2 - 1, 2; фильм 3 - 3, 4; фильм 4 - 5
+        like(1, 1, 2, 3);
+        like(2, 1, 2);
+        like(3, 3, 4);
+        like(4, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void cosineNeighbours() {
+        ItemSimilarityModel model = model("cosine", 20, "item");
+        model.rebuild();
+
+        ItemSimilarityModel.Neighbours neighbours = model.getNeighbours(1);
+        assertEquals(2, neighbours.size());
+        assertEquals(2, neighbours.getFilmId(0));
+        assertEquals(2 / Math.sqrt(6), neighbours.getScore(0), 1e-9);
+        assertEquals(3, neighbours.getFilmId(1));
+        assertEquals(1 / Math.sqrt(6), neighbours.getScore(1), 1e-9);
+        assertEquals(0, model.getNeighbours(4).size());
+        assertEquals(0, model.getNeighbours(100).size());
+    }
+
+    @Test
+    void jaccardNeighboursLimitedByK() {
+        ItemSimilarityModel model = model("jaccard", 1, "item");
+        model.rebuild();
+
+        ItemSimilarityModel.Neighbours neighbours = model.getNeighbours(1);
+        assertEquals(1, neighbours.size());
+        assertEquals(2, neighbours.getFilmId(0));
+        assertEquals(2.0 / 3, neighbours.getScore(0), 1e-9);
+    }
+
+    @Test
+    void refreshRebuildsOnlyAfterLikeChanges() {
+        ItemSimilarityModel model = model("cosine", 20, "item");
+        model.refresh();
+        model.refresh();
+        verify(publisher, times(1)).publishEvent(any(ItemSimilarityModel.RebuiltEvent.class));
+
+        like(4, 1);
+        model.refresh();
+        verify(publisher, times(2)).publishEvent(any(ItemSimilarityModel.RebuiltEvent.class));
+        //фильм 4 - пользователи 5, 1: фильм 2 (1 / sqrt(4)) ближе фильма 1 (1 / sqrt(6))
+        ItemSimilarityModel.Neighbours neighbours = model.getNeighbours(4);
+        assertEquals(2, neighbours.size());
+        assertEquals(2, neighbours.getFilmId(0));
+        assertEquals(1, neighbours.getFilmId(1));
+    }
+
+    @Test
+    void otherModesBuildOnFirstRequest() {
+        ItemSimilarityModel model = model("cosine", 20, "user");
+        model.refresh();
+        verify(publisher, never()).publishEvent(any(Object.class));
+
+        assertEquals(2, model.getNeighbours(1).size());
+        model.refresh();
+        verify(publisher, times(1)).publishEvent(any(ItemSimilarityModel.RebuiltEvent.class));
+
+        //после первого запроса модель поддерживается в актуальном состоянии
+        like(4, 1);
+        model.refresh();
+        verify(publisher, times(2)).publishEvent(any(ItemSimilarityModel.RebuiltEvent.class));
+    }
+
+    private ItemSimilarityModel model(String measure, int k, String mode) {
+        return new ItemSimilarityModel(likesIndex, publisher, pool, k, measure, mode);
+    }
+
+    private void like(long filmId, long... users) {
+        for (long userId : users) {
+            likesIndex.addLike(filmId, userId);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "filmorate.recommendations.snapshot.path=" + LikesSnapshotTest.PATH)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class LikesSnapshotTest {
+    static final String PATH = "target/likes-index-test.snapshot";
+
+    private final LikesIndex likesIndex;
+    private final LikesSnapshot snapshot;
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> filmIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(PATH));
+        for (int i = 0; i < 4; i++) {
+            userIds.add(userService.create(getUser(i)).getId());
+        }
+        for (int i = 0; i < 5; i++) {
+            filmIds.add(filmService.create(getFilm(i)).getId());
+        }
+    }
+
+    @Test
+    void restoreCatchesUpWithChanges() {
+        like(0, 0, 1, 2);
+        like(1, 0, 3);
+        like(2, 4);
+        likesIndex.saveSnapshot();
+
+        like(3, 0, 1);
+        filmService.removeLike(filmIds.get(1), userIds.get(0));
+        filmService.delete(filmIds.get(4));
+        userService.delete(userIds.get(1));
+
+        LikesIndex restored = new LikesIndex(filmStorage, snapshot);
+        assertTrue(snapshot.restore(restored));
+        assertArrayEquals(likesIndex.getLikedFilms(), restored.getLikedFilms());
+        for (long filmId : likesIndex.getLikedFilms()) {
+            assertArrayEquals(likesIndex.getUsers(filmId), restored.getUsers(filmId));
+        }
+        assertArrayEquals(likesIndex.getLikingUsers(), restored.getLikingUsers());
+        for (long userId : likesIndex.getLikingUsers()) {
+            assertArrayEquals(likesIndex.getFilms(userId), restored.getFilms(userId));
+        }
+    }
+
+    @Test
+    void restoreFailsWhenLikesChangedWithoutEvents() {
+        like(0, 0, 1);
+        likesIndex.saveSnapshot();
+        jdbcTemplate.update("DELETE FROM FILMS_LIKES WHERE FILM_ID = ?", filmIds.get(0));
+
+        assertFalse(snapshot.restore(new LikesIndex(filmStorage, snapshot)));
+    }
+
+    @Test
+    void restoreFailsOnTruncatedSnapshot() throws IOException {
+        like(0, 0, 1, 2);
+        likesIndex.saveSnapshot();
+        byte[] bytes = Files.readAllBytes(Paths.get(PATH));
+        Files.write(Paths.get(PATH), Arrays.copyOf(bytes, bytes.length - Long.BYTES));
+
+        assertFalse(snapshot.restore(new LikesIndex(filmStorage, snapshot)));
+    }
+
+    @Test
+    void restoreWithoutSnapshot() {
+        assertFalse(snapshot.restore(new LikesIndex(filmStorage, snapshot)));
+    }
+
+    private void like(int user, int... films) {
+        for (int film : films) {
+            filmService.addLike(filmIds.get(film), userIds.get(user));
+        }
+    }
+
+    private User getUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@ya.ru");
+        user.setLogin("usr" + i);
+        user.setName("User" + i);
+        user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+        return user;
+    }
+
+    private Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        return film;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+//Полнота приближённого режима против точного на синтетических данных:
+//пользователи разбиты на группы по вкусам, большая часть лайков - из фильмов своей группы,
+//плюс несколько популярных фильмов, которые лайкает заметная доля всех пользователей
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MinHashEngineTest {
+    private static final int USERS = 3000;
+    private static final int FILMS = 2000;
+    private static final int GROUPS = 60;
+    private static final int GROUP_FILMS = 40;
+    private static final int LIKES_IN_GROUP = 15;
+    private static final int RANDOM_LIKES = 3;
+    //популярные фильмы с длинными списками лайкнувших - на них точный подсчёт тратит больше всего
+    private static final int POPULAR_FILMS = 10;
+    private static final double POPULAR_SHARE = 0.3;
+    private static final int LIMIT = 100;
+
+    private final LikesIndex likesIndex = new LikesIndex(mock(FilmStorage.class), mock(LikesSnapshot.class));
+
+    @BeforeAll
+    void setUp() {
+        Random random = new Random(7);
+        for (long userId = 1; userId <= USERS; userId++) {
+            int group = random.nextInt(GROUPS);
+            for (int i = 0; i < LIKES_IN_GROUP; i++) {
+                likesIndex.addLike(1 + group * GROUP_FILMS + random.nextInt(GROUP_FILMS), userId);
+            }
+            for (int i = 0; i < RANDOM_LIKES; i++) {
+                likesIndex.addLike(1 + random.nextInt(FILMS), userId);
+            }
+            for (int i = 0; i < POPULAR_FILMS; i++) {
+                if (random.nextDouble() < POPULAR_SHARE) {
+                    likesIndex.addLike(FILMS + 1 + i, userId);
+                }
+            }
+        }
+    }
+
+    //Время и перебор bands/rows - MinHashBenchmark; здесь только полнота при настройках по умолчанию
+    @Test
+    void recallAgainstExact() {
+        ScoringPool pool = new ScoringPool(1, 1, Integer.MAX_VALUE);
+        UserBasedEngine exact = new UserBasedEngine(likesIndex, pool);
+        MinHashEngine engine = new MinHashEngine(likesIndex, 32, 2, 42);
+        engine.init();
+        long foundFilms = 0;
+        long expectedFilms = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            Set<Long> expected = new HashSet<>(exact.recommend(userId, LIMIT).getFilmIds());
+            expectedFilms += expected.size();
+            for (Long filmId : engine.recommend(userId, LIMIT).getFilmIds()) {
+                if (expected.contains(filmId)) {
+                    foundFilms++;
+                }
+            }
+        }
+        pool.shutdown();
+        double recall = (double) foundFilms / expectedFilms;
+        assertTrue(recall > 0.85, "Полнота при настройках по умолчанию " + recall);
+    }
+
+    @Test
+    void candidatesFollowLikes() {
+        MinHashIndex index = new MinHashIndex(16, 4, 1);
+        index.update(1, new long[]{1, 2, 3, 4});
+        index.update(2, new long[]{1, 2, 3, 4});
+        index.update(3, new long[]{100, 200});
+        assertEquals(Set.of(2L), index.getCandidates(1));
+
+        index.update(2, new long[]{100, 200});
+        assertTrue(index.getCandidates(1).isEmpty());
+        assertEquals(Set.of(2L), index.getCandidates(3));
+
+        index.remove(2);
+        assertTrue(index.getCandidates(3).isEmpty());
+    }
+}
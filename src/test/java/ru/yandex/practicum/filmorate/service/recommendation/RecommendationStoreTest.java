@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RecommendationStoreTest {
+    private final RecommendationStore store = new RecommendationStore(
+            new LikesIndex(mock(FilmStorage.class), mock(LikesSnapshot.class)), new SimpleMeterRegistry());
+
+    @Test
+    void refreshStartedBeforeLikeNotStored() {
+        RecommendationStore.Entry entry = store.refresh(1, userId -> {
+            store.likeChanged(10, userId);
+            return entry(2);
+        });
+
+        assertNotNull(entry);
+        assertNull(store.get(1));
+        assertEquals(List.of(1L), store.getDirtyUsers(10));
+
+        store.refresh(1, userId -> entry(2));
+        assertNotNull(store.get(1));
+        assertTrue(store.getDirtyUsers(10).isEmpty());
+    }
+
+    @Test
+    void likeChangeForgetsOldNeighbours() {
+        store.refresh(1, userId -> entry(2));
+        store.likeChanged(10, 1);
+        store.refresh(1, userId -> entry(3));
+
+        //сосед из удалённой записи больше не помечает пользователя
+        store.likeChanged(10, 2);
+        assertEquals(List.of(2L), store.getDirtyUsers(10));
+        store.likeChanged(10, 3);
+        assertTrue(store.getDirtyUsers(10).contains(1L));
+    }
+
+    @Test
+    void removedUserForgotten() {
+        store.refresh(1, userId -> entry(2));
+        store.likeChanged(10, 1);
+        store.userRemoved(1);
+        assertFalse(store.isTracked(1));
+
+        //расчёт, начатый до удаления, запись не возвращает
+        store.refresh(3, userId -> {
+            store.userRemoved(3);
+            return entry(2);
+        });
+        assertFalse(store.isTracked(3));
+    }
+
+    private static RecommendationStore.Entry entry(long... neighbours) {
+        return new RecommendationStore.Entry(List.of(100L), neighbours);
+    }
+}
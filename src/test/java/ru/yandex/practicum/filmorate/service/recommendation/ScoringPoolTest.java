@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Параллельный поиск соседей совпадает с последовательным; время при разном числе потоков - ScoringBenchmark
+
+class ScoringPoolTest {
+    private static final int USERS = 200_000;
+    private static final int FILMS = 60;
+    private static final int LIKES_PER_FILM = 20_000;
+
+    private final long[][] userLists = generate();
+
+    @Test
+    void sameNeighboursForAnyParallelism() {
+        ScoringPool sequential = new ScoringPool(1, 1, Integer.MAX_VALUE);
+        long[] expected = sequential.findMostSimilar(userLists, 5);
+        sequential.shutdown();
+        Arrays.sort(expected);
+        assertTrue(expected.length > 0);
+
+        for (int threads : new int[]{2, 3, 8}) {
+            ScoringPool pool = new ScoringPool(threads, threads, 0);
+            long[] actual = pool.findMostSimilar(userLists, 5);
+            pool.shutdown();
+
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void excludesUserAndHandlesEmptyLists() {
+        ScoringPool pool = new ScoringPool(4, 4, 0);
+        assertArrayEquals(new long[]{2}, pool.findMostSimilar(new long[][]{{1, 2, 3}, {1, 2}, {}, {2, 7}}, 1));
+        assertArrayEquals(new long[0], pool.findMostSimilar(new long[][]{{1}, {}}, 1));
+        assertArrayEquals(new long[0], pool.findMostSimilar(new long[0][], 1));
+        pool.shutdown();
+    }
+
+    private static long[][] generate() {
+        Random random = new Random(3);
+        long[][] lists = new long[FILMS][];
+        for (int i = 0; i < FILMS; i++) {
+            lists[i] = random.longs(LIKES_PER_FILM, 1, USERS + 1).distinct().sorted().toArray();
+        }
+        //пустые списки у фильмов без лайков
+        lists[FILMS - 1] = new long[0];
+        assertTrue(Arrays.stream(lists).mapToInt(users -> users.length).sum() > 0);
+        return lists;
+    }
+}
@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.service.review;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReviewGradeCountersTest {
+    private static final long REVIEW_ID = 1;
+    private static final long FILM_ID = 10;
+
+    private final ReviewStorage storage = mock(ReviewStorage.class);
+    private ReviewGradeCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        //как и настоящее хранилище, каждый поиск отдаёт новый объект: загрузки из разных потоков не делят оценки
+        when(storage.findById(REVIEW_ID)).thenAnswer(invocation -> {
+            Review review = new Review();
+            review.setReviewId(REVIEW_ID);
+            review.setFilmId(FILM_ID);
+            return review;
+        });
+        doAnswer(invocation -> {
+            invocation.<Review>getArgument(0).addGrade(100L, false);
+            return null;
+        }).when(storage).loadGrades(any(Review.class));
+        counters = new ReviewGradeCounters(storage, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void setGradeUpdatesUseful() {
+        assertTrue(counters.setGrade(REVIEW_ID, 1, true));
+        assertFalse(counters.setGrade(REVIEW_ID, 1, true));
+        assertTrue(counters.setGrade(REVIEW_ID, 2, true));
+        assertTrue(counters.setGrade(REVIEW_ID, 2, false));
+        assertFalse(counters.setGrade(REVIEW_ID, 3, null));
+
+        assertEquals(Map.of(REVIEW_ID, -1), counters.getUseful(FILM_ID));
+        assertTrue(counters.getUseful(FILM_ID + 1).isEmpty());
+        Review review = new Review();
+        review.setReviewId(REVIEW_ID);
+        assertTrue(counters.fill(review));
+        assertEquals(-1, review.getUseful());
+        assertEquals(Map.of(1L, true, 2L, false, 100L, false), review.getGrades());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesLatestGrades() {
+        counters.setGrade(REVIEW_ID, 1, true);
+        counters.setGrade(REVIEW_ID, 2, true);
+        counters.setGrade(REVIEW_ID, 2, false);
+        counters.setGrade(REVIEW_ID, 100, null);
+        counters.flush();
+
+        ArgumentCaptor<Map<Long, Boolean>> grades = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Collection<Long>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(storage).saveGrades(eq(REVIEW_ID), grades.capture(), deleted.capture());
+        assertEquals(Map.of(1L, true, 2L, false), grades.getValue());
+        assertEquals(List.of(100L), List.copyOf(deleted.getValue()));
+        assertEquals(0, counters.getPendingCount());
+
+        counters.flush();
+        verify(storage, times(1)).saveGrades(anyLong(), any(), any());
+    }
+
+    @Test
+    void integrityViolationKeepsOtherGrades() {
+        counters.setGrade(REVIEW_ID, 1, true);
+        counters.setGrade(REVIEW_ID, 2, true);
+        //пользователь 2 удалён до сброса
+        doThrow(new DataIntegrityViolationException("user 2")).when(storage)
+                .saveGrades(eq(REVIEW_ID), argThat((Map<Long, Boolean> grades) -> grades.containsKey(2L)), any());
+        counters.flush();
+
+        verify(storage).saveGrades(REVIEW_ID, Map.of(1L, true), List.of());
+        assertEquals(Map.of(REVIEW_ID, 0), counters.getUseful(FILM_ID));
+        assertEquals(0, counters.getPendingCount());
+    }
+
+    @Test
+    void deletedReviewDropped() {
+        counters.setGrade(REVIEW_ID, 1, true);
+        doThrow(new DataIntegrityViolationException("review")).when(storage).saveGrades(anyLong(), any(), any());
+        when(storage.findById(REVIEW_ID)).thenReturn(null);
+        counters.flush();
+
+        assertTrue(counters.getUseful(null).isEmpty());
+        assertEquals(0, counters.getPendingCount());
+    }
+
+    @Test
+    void idleReviewIsEvicted() {
+        counters.setGrade(REVIEW_ID, 1, true);
+        counters.flush();
+        counters.flush();
+        counters.flush();
+
+        assertTrue(counters.getUseful(null).isEmpty());
+        counters.setGrade(REVIEW_ID, 2, true);
+        verify(storage, times(2)).findById(REVIEW_ID);
+    }
+
+    @Test
+    void removeUser() {
+        counters.setGrade(REVIEW_ID, 1, true);
+        counters.removeUser(100);
+        counters.removeUser(1);
+
+        assertEquals(Map.of(REVIEW_ID, 0), counters.getUseful(null));
+        assertEquals(0, counters.getPendingCount());
+    }
+
+    @Test
+    void unknownReview() {
+        assertThrows(NotFoundException.class, () -> counters.setGrade(REVIEW_ID + 1, 1, true));
+    }
+
+    @Test
+    void concurrentGrades() throws Exception {
+        int threads = 8;
+        int users = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures[t] = executor.submit(() -> {
+                    for (long userId = 1; userId <= users; userId++) {
+                        counters.setGrade(REVIEW_ID, userId, (userId + thread) % 2 == 0);
+                        counters.setGrade(REVIEW_ID, userId, userId % 3 != 0);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //итоговая оценка пользователя зависит от чередования потоков, но счётчик должен совпасть с оценками
+        Review review = new Review();
+        review.setReviewId(REVIEW_ID);
+        counters.fill(review);
+        int expected = 0;
+        for (boolean positive : review.getGrades().values()) {
+            expected += positive ? 1 : -1;
+        }
+        //загруженная оценка пользователя 100 перезаписана потоками, лишних пользователей нет
+        assertEquals(users, review.getGrades().size());
+        assertEquals(expected, review.getUseful());
+    }
+}
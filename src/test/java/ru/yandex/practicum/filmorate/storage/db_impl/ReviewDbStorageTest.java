@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.storage.db_impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ReviewDbStorageTest {
+    private final ReviewDbStorage reviewStorage;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final List<Long> userIds = new ArrayList<>();
+    private Long filmId1;
+    private Long filmId2;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            userIds.add(userStorage.create(getUser(i)).getId());
+        }
+        filmId1 = filmStorage.create(getFilm(1)).getId();
+        filmId2 = filmStorage.create(getFilm(2)).getId();
+    }
+
+    @Test
+    void saveGradeUpdatesUseful() {
+        Review review = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        grade(review.getId(), userIds.get(1), true);
+        grade(review.getId(), userIds.get(2), false);
+        grade(review.getId(), userIds.get(0), true);
+        assertEquals(1, reviewStorage.findById(review.getId()).getUseful());
+
+        grade(review.getId(), userIds.get(0), false);
+        assertEquals(-1, reviewStorage.findById(review.getId()).getUseful());
+    }
+
+    @Test
+    void saveGradesInBatch() {
+        Review review = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        reviewStorage.saveGrades(review.getId(), Map.of(userIds.get(1), true, userIds.get(2), false), List.of());
+        assertEquals(0, reviewStorage.findById(review.getId()).getUseful());
+
+        reviewStorage.saveGrades(review.getId(), Map.of(userIds.get(0), true), List.of(userIds.get(2)));
+        Review actReview = reviewStorage.findById(review.getId());
+        assertEquals(2, actReview.getUseful());
+        reviewStorage.loadGrades(actReview);
+        assertEquals(Map.of(userIds.get(0), true, userIds.get(1), true), actReview.getGrades());
+    }
+
+    @Test
+    void findAllById() {
+        Review review1 = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        reviewStorage.create(getReview(filmId1, userIds.get(1)));
+        Review review3 = reviewStorage.create(getReview(filmId2, userIds.get(2)));
+
+        assertEquals(Set.of(review1.getId(), review3.getId()),
+                Set.copyOf(ids(reviewStorage.findAllById(List.of(review1.getId(), review3.getId())))));
+        assertTrue(reviewStorage.findAllById(List.of()).isEmpty());
+    }
+
+    @Test
+    void findAllByFilmOrderedByUseful() {
+        Review review1 = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        Review review2 = reviewStorage.create(getReview(filmId1, userIds.get(1)));
+        Review review3 = reviewStorage.create(getReview(filmId1, userIds.get(2)));
+        Review review4 = reviewStorage.create(getReview(filmId2, userIds.get(0)));
+        grade(review2.getId(), userIds.get(0), true);
+        grade(review3.getId(), userIds.get(0), false);
+        grade(review4.getId(), userIds.get(1), true);
+        grade(review4.getId(), userIds.get(2), true);
+
+        assertEquals(List.of(review2.getId(), review1.getId()), ids(reviewStorage.findAllByFilm(filmId1, 2)));
+        assertEquals(List.of(review4.getId(), review2.getId(), review1.getId()),
+                ids(reviewStorage.findAllByFilm(null, 3)));
+    }
+
+    @Test
+    void loadGradesForList() {
+        Review review1 = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        Review review2 = reviewStorage.create(getReview(filmId1, userIds.get(1)));
+        grade(review1.getId(), userIds.get(1), true);
+        grade(review1.getId(), userIds.get(2), false);
+        grade(review2.getId(), userIds.get(0), true);
+
+        List<Review> reviews = reviewStorage.findAllByFilm(filmId1, 10);
+        reviewStorage.loadGrades(reviews);
+        Map<Long, Review> reviewsById = reviews.stream().collect(Collectors.toMap(Review::getId, review -> review));
+        assertEquals(Map.of(userIds.get(1), true, userIds.get(2), false),
+                reviewsById.get(review1.getId()).getGrades());
+        assertEquals(Map.of(userIds.get(0), true), reviewsById.get(review2.getId()).getGrades());
+    }
+
+    @Test
+    void deleteUserUpdatesUseful() {
+        Review review = reviewStorage.create(getReview(filmId1, userIds.get(0)));
+        grade(review.getId(), userIds.get(1), true);
+        grade(review.getId(), userIds.get(2), false);
+
+        userStorage.delete(userIds.get(2));
+        assertEquals(1, reviewStorage.findById(review.getId()).getUseful());
+    }
+
+    private void grade(Long reviewId, Long userId, boolean positive) {
+        reviewStorage.saveGrades(reviewId, Map.of(userId, positive), List.of());
+    }
+
+    private List<Long> ids(List<Review> reviews) {
+        return reviews.stream().map(Review::getId).collect(Collectors.toList());
+    }
+
+    private Review getReview(Long filmId, Long userId) {
+        Review review = new Review();
+        review.setFilmId(filmId);
+        review.setUserId(userId);
+        review.setContent("Review" + userId);
+        review.setIsPositive(true);
+        return review;
+    }
+
+    private User getUser(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@ya.ru");
+        user.setLogin("usr" + i);
+        user.setName("User" + i);
+        user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+        return user;
+    }
+
+    private Film getFilm(int i) {
+        Film film = new Film();
+        film.setName("Film" + i);
+        film.setDescription("DESCRIPTION" + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        Rating rating = new Rating();
+        rating.setId(1L);
+        film.setMpa(rating);
+        return film;
+    }
+}
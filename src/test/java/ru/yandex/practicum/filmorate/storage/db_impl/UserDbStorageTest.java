@@ -5,11 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
 class UserDbStorageTest {
     private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
     private static final String EMAIL1 = "user1@ya.ru";
     private static final String EMAIL2 = "user2@ya.ru";
 
@@ -118,6 +123,113 @@ class UserDbStorageTest {
         assertTrue(expUser2.getFiends().isEmpty());
     }
 
+    @Test
+    void contains() {
+        User expUser1 = getExpUser1();
+        userStorage.create(expUser1);
+        assertTrue(userStorage.contains(expUser1.getId()));
+        assertFalse(userStorage.contains(expUser1.getId() + 1));
+    }
+
+    @Test
+    void addFriendship() {
+        User expUser1 = getExpUser1();
+        userStorage.create(expUser1);
+        User expUser2 = getExpUser2();
+        userStorage.create(expUser2);
+        Long id1 = expUser1.getId();
+        Long id2 = expUser2.getId();
+
+        assertTrue(userStorage.addFriendship(id1, id2));
+        assertFalse(userStorage.addFriendship(id1, id2));
+        assertEquals(List.of(id2), loadFriends(id1));
+        assertTrue(loadFriends(id2).isEmpty());
+
+        //Встречная заявка подтверждает дружбу
+        assertTrue(userStorage.addFriendship(id2, id1));
+        assertFalse(userStorage.addFriendship(id2, id1));
+        assertFalse(userStorage.addFriendship(id1, id2));
+        assertEquals(List.of(id2), loadFriends(id1));
+        assertEquals(List.of(id1), loadFriends(id2));
+    }
+
+    @Test
+    void removeFriendship() {
+        User expUser1 = getExpUser1();
+        userStorage.create(expUser1);
+        User expUser2 = getExpUser2();
+        userStorage.create(expUser2);
+        Long id1 = expUser1.getId();
+        Long id2 = expUser2.getId();
+
+        assertFalse(userStorage.removeFriendship(id1, id2));
+        userStorage.addFriendship(id1, id2);
+        userStorage.addFriendship(id2, id1);
+
+        //Совместная связь становится заявкой от второго пользователя
+        assertTrue(userStorage.removeFriendship(id1, id2));
+        assertTrue(loadFriends(id1).isEmpty());
+        assertEquals(List.of(id1), loadFriends(id2));
+
+        assertFalse(userStorage.removeFriendship(id1, id2));
+        assertTrue(userStorage.removeFriendship(id2, id1));
+        assertTrue(loadFriends(id2).isEmpty());
+    }
+
+    @Test
+    void reversePairRejected() {
+        User expUser1 = getExpUser1();
+        userStorage.create(expUser1);
+        User expUser2 = getExpUser2();
+        userStorage.create(expUser2);
+        userStorage.addFriendship(expUser1.getId(), expUser2.getId());
+
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO FRIENDSHIP (USER_ID1, USER_ID2, CONFIRMED) VALUES (?, ?, FALSE)",
+                expUser2.getId(), expUser1.getId()));
+    }
+
+    //Одновременные встречные заявки дают одну подтверждённую дружбу
+    @Test
+    void concurrentMutualAdd() {
+        User expUser1 = getExpUser1();
+        userStorage.create(expUser1);
+        User expUser2 = getExpUser2();
+        userStorage.create(expUser2);
+        Long id1 = expUser1.getId();
+        Long id2 = expUser2.getId();
+
+        for (int i = 0; i < 50; i++) {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> add(barrier, id1, id2));
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> add(barrier, id2, id1));
+            assertTrue(first.join());
+            assertTrue(second.join());
+
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDSHIP", Integer.class));
+            assertEquals(List.of(id2), loadFriends(id1));
+            assertEquals(List.of(id1), loadFriends(id2));
+
+            userStorage.removeFriendship(id1, id2);
+            userStorage.removeFriendship(id2, id1);
+        }
+    }
+
+    private boolean add(CyclicBarrier barrier, Long id, Long friendId) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return userStorage.addFriendship(id, friendId);
+    }
+
+    private List<Long> loadFriends(Long id) {
+        User user = userStorage.findById(id);
+        userStorage.loadFriends(user);
+        return user.getFiends();
+    }
+
     private User getExpUser1() {
         User user = new User();
         user.setEmail(EMAIL1);
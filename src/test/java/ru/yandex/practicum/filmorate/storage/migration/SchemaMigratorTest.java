@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:migration-test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new SchemaMigrator(SchemaMigrations.LOCATION, true).migrate(dataSource);
+    }
+
+    @Test
+    void migrationsAppliedOnce() {
+        assertEquals(4, count("SCHEMA_VERSION"));
+        assertEquals(6, count("GENRES"));
+        assertEquals(5, count("RATINGS"));
+        assertEquals(1, count("INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_FILMS_RELEASE_DATE'"));
+        jdbcTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, NAME, BIRTHDAY) " +
+                "VALUES ('user@ya.ru', 'user', 'user', '1990-01-01')");
+
+        assertEquals(0, new SchemaMigrator(SchemaMigrations.LOCATION, false).migrate(dataSource));
+
+        assertEquals(1, count("USERS"));
+        assertEquals(6, count("GENRES"));
+    }
+
+    @Test
+    void changedMigrationRejected() {
+        jdbcTemplate.update("UPDATE SCHEMA_VERSION SET CHECKSUM = CHECKSUM + 1 WHERE VERSION = 1");
+
+        assertThrows(IllegalStateException.class,
+                () -> new SchemaMigrator(SchemaMigrations.LOCATION, false).migrate(dataSource));
+    }
+
+    @Test
+    void shardMigrations() {
+        SchemaMigrator migrator = new SchemaMigrator(SchemaMigrations.SHARD_LOCATION, true);
+
+        assertEquals(3, migrator.migrate(dataSource));
+        assertEquals(0, count("EVENTS"));
+        assertEquals(1, count("INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_EVENTS_USER_ID'"));
+    }
+
+    //База, созданная schema.sql и data.sql до миграций: без reviews.useful, с повторяющимися оценками
+    @Test
+    void baselineDatabaseMigrated() {
+        DriverManagerDataSource baseline =
+                new DriverManagerDataSource("jdbc:h2:mem:migration-baseline;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate baselineTemplate = new JdbcTemplate(baseline);
+        baselineTemplate.execute("DROP ALL OBJECTS");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("baseline/schema.sql"), new ClassPathResource("baseline/data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(baseline);
+        baselineTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, NAME, BIRTHDAY) VALUES " +
+                "('user1@ya.ru', 'user1', 'user1', '1990-01-01'), ('user2@ya.ru', 'user2', 'user2', '1990-01-01')");
+        baselineTemplate.update("INSERT INTO FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATING_ID) " +
+                "VALUES ('film', 'film', '2000-01-01', 100, 1)");
+        baselineTemplate.update("INSERT INTO REVIEWS (FILM_ID, USER_ID, DESCRIPTION, POSITIVE) " +
+                "VALUES (1, 1, 'review', TRUE)");
+        baselineTemplate.update("INSERT INTO GRADES (REVIEW_ID, USER_ID, POSITIVE) VALUES " +
+                "(1, 1, FALSE), (1, 2, TRUE), (1, 2, TRUE)");
+
+        assertEquals(4, new SchemaMigrator(SchemaMigrations.LOCATION, false).migrate(baseline));
+
+        assertEquals(0, baselineTemplate.queryForObject("SELECT USEFUL FROM REVIEWS", Integer.class));
+        assertEquals(2, baselineTemplate.queryForObject("SELECT COUNT(*) FROM GRADES", Integer.class));
+        assertEquals(6, baselineTemplate.queryForObject("SELECT COUNT(*) FROM GENRES", Integer.class));
+        assertEquals(1, baselineTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES " +
+                "WHERE INDEX_NAME = 'IDX_REVIEWS_FILM_ID_USEFUL'", Integer.class));
+        assertThrows(DuplicateKeyException.class, () -> baselineTemplate.update(
+                "INSERT INTO GRADES (REVIEW_ID, USER_ID, POSITIVE) VALUES (1, 1, TRUE)"));
+    }
+
+    private long count(String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.controller.ReplicaRoutingFilter;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import javax.servlet.http.Cookie;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Вторая база H2 в памяти служит репликой; фоновая копия выключена, реплика обновляется только через sync
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "filmorate.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "filmorate.datasource.replica.sync-ms=0",
+        "filmorate.schema.clean=true",
+        "filmorate.recommendations.snapshot.path="})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private final MockMvc mvc;
+    private final ObjectMapper objectMapper;
+    private final Replicas replicas;
+    private final UserService userService;
+
+    @Test
+    void readYourWrites() throws Exception {
+        replicas.sync();
+        MvcResult created = mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(getUser("user"))))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie position = created.getResponse().getCookie(ReplicaRoutingFilter.COOKIE);
+        assertNotNull(position);
+        long id = objectMapper.readValue(created.getResponse().getContentAsString(), User.class).getId();
+
+        //реплика ещё не получила пользователя, но клиент после записи читает из основной базы
+        mvc.perform(get("/users/" + id)).andExpect(status().isNotFound());
+        mvc.perform(get("/users/" + id).cookie(position)).andExpect(status().isOk());
+
+        replicas.sync();
+        mvc.perform(get("/users/" + id)).andExpect(status().isOk());
+        mvc.perform(get("/users/" + id).cookie(position)).andExpect(status().isOk());
+    }
+
+    @Test
+    void readsServedByReplica() throws Exception {
+        userService.create(getUser("primary"));
+        replicas.sync();
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "password");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO USERS (EMAIL, LOGIN, NAME, BIRTHDAY) " +
+                    "VALUES ('replica@ya.ru', 'replica', 'replica', '1990-01-01')");
+        }
+
+        mvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].login").value("replica"));
+        //вне HTTP-запроса и в изменяющих запросах - только основная база
+        assertEquals(1, userService.findAll().size());
+    }
+
+    @Test
+    void notSyncedReplicaSkipped() throws Exception {
+        //до первой копии реплика пуста и закрыта для чтений
+        User user = userService.create(getUser("user"));
+        mvc.perform(get("/users/" + user.getId())).andExpect(status().isOk());
+    }
+
+    private static User getUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@ya.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.storage.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.AbstractEntity;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EventService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.db_impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Три шарда - базы H2 в памяти рядом с основной; они переживают контекст, поэтому схема пересоздаётся (clean)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-main;DB_CLOSE_DELAY=-1",
+        "filmorate.shards.count=3",
+        "filmorate.shards.url=jdbc:h2:mem:sharding-shard-%d;DB_CLOSE_DELAY=-1",
+        "filmorate.schema.clean=true",
+        "filmorate.recommendations.snapshot.path="})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ShardingTest {
+    private final Shards shards;
+    private final UserService userService;
+    private final FilmService filmService;
+    private final EventService eventService;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserDbStorage userStorage;
+
+    @Test
+    void userRowsStayInOwnShard() {
+        List<User> users = createUsers(6);
+        Film film = filmService.create(getFilm("film"));
+        for (User user : users) {
+            filmService.addLike(film.getId(), user.getId());
+        }
+
+        assertEquals(6, filmService.findById(film.getId()).getLikesCount());
+        assertEquals(0, count(jdbcTemplate, "FILMS_LIKES"));
+        assertEquals(0, count(jdbcTemplate, "EVENTS"));
+        int used = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            List<Long> owners = shards.get(i).queryForList("SELECT USER_ID FROM FILMS_LIKES", Long.class);
+            for (Long owner : owners) {
+                assertEquals(i, shards.indexOf(owner));
+            }
+            used += owners.isEmpty() ? 0 : 1;
+        }
+        assertTrue(used > 1);
+        assertEquals(1, eventService.findEventsByUserId(users.get(0).getId()).size());
+    }
+
+    @Test
+    void commonMoviesAndFriendsAcrossShards() {
+        List<User> users = createUsers(3);
+        User user = users.get(0);
+        User other = otherShard(users, user);
+        Film common = filmService.create(getFilm("common"));
+        Film own = filmService.create(getFilm("own"));
+        filmService.addLike(common.getId(), user.getId());
+        filmService.addLike(common.getId(), other.getId());
+        filmService.addLike(own.getId(), user.getId());
+
+        assertEquals(List.of(common.getId()), ids(filmService.commonMovies(user.getId(), other.getId())));
+
+        userService.addFriend(user.getId(), other.getId());
+        assertEquals(List.of(other.getId()), ids(userService.getFriends(user.getId())));
+        assertTrue(userService.getFriends(other.getId()).isEmpty());
+        userService.addFriend(other.getId(), user.getId());
+        assertEquals(List.of(user.getId()), ids(userService.getFriends(other.getId())));
+    }
+
+    @Test
+    void deleteUserCleansShards() {
+        List<User> users = createUsers(3);
+        User user = users.get(0);
+        User friend = otherShard(users, user);
+        Film film = filmService.create(getFilm("film"));
+        filmService.addLike(film.getId(), user.getId());
+        userService.addFriend(user.getId(), friend.getId());
+        userService.addFriend(friend.getId(), user.getId());
+
+        userService.delete(user.getId());
+
+        for (JdbcTemplate shard : shards.all()) {
+            assertEquals(0, count(shard, "FILMS_LIKES WHERE USER_ID = " + user.getId()));
+            assertEquals(0, count(shard, "EVENTS WHERE USER_ID = " + user.getId()));
+            assertEquals(0, count(shard, "FRIENDSHIP WHERE USER_ID1 = " + user.getId() +
+                    " OR USER_ID2 = " + user.getId()));
+        }
+        assertTrue(userService.getFriends(friend.getId()).isEmpty());
+        assertEquals(0, filmService.findById(film.getId()).getLikesCount());
+    }
+
+    //Сбой записи копии во второй шард откатывает изменение дружбы в шарде-владельце (меньший id)
+    @Test
+    void failedFriendCopyCompensated() {
+        List<User> users = createUsers(3);
+        Long id = users.get(0).getId();
+        Long friendId = otherShard(users, users.get(0)).getId();
+        assertTrue(id < friendId);
+        JdbcTemplate shard = shards.forUser(id);
+        JdbcTemplate friendShard = shards.forUser(friendId);
+
+        friendShard.execute("ALTER TABLE FRIENDSHIP RENAME TO FRIENDSHIP_OFF");
+        assertThrows(RuntimeException.class, () -> userStorage.addFriendship(id, friendId));
+        assertEquals(0, count(shard, "FRIENDSHIP"));
+        friendShard.execute("ALTER TABLE FRIENDSHIP_OFF RENAME TO FRIENDSHIP");
+
+        userStorage.addFriendship(id, friendId);
+        userStorage.addFriendship(friendId, id);
+        friendShard.execute("ALTER TABLE FRIENDSHIP RENAME TO FRIENDSHIP_OFF");
+        assertThrows(RuntimeException.class, () -> userStorage.removeFriendship(id, friendId));
+        assertEquals(1, count(shard, "FRIENDSHIP WHERE CONFIRMED = TRUE"));
+        friendShard.execute("ALTER TABLE FRIENDSHIP_OFF RENAME TO FRIENDSHIP");
+        assertEquals(1, count(friendShard, "FRIENDSHIP WHERE CONFIRMED = TRUE"));
+    }
+
+    //Одновременные встречные заявки пользователей из разных шардов дают одинаковые подтверждённые копии
+    @Test
+    void concurrentMutualAddAcrossShards() {
+        List<User> users = createUsers(3);
+        Long id = users.get(0).getId();
+        Long friendId = otherShard(users, users.get(0)).getId();
+        String pair = "FRIENDSHIP WHERE CONFIRMED = TRUE AND USER_ID1 + USER_ID2 = " + (id + friendId);
+
+        for (int i = 0; i < 50; i++) {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> add(barrier, id, friendId));
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> add(barrier, friendId, id));
+            assertTrue(first.join());
+            assertTrue(second.join());
+
+            for (JdbcTemplate shard : List.of(shards.forUser(id), shards.forUser(friendId))) {
+                assertEquals(1, count(shard, "FRIENDSHIP"));
+                assertEquals(1, count(shard, pair));
+            }
+            assertEquals(List.of(friendId), ids(userService.getFriends(id)));
+            assertEquals(List.of(id), ids(userService.getFriends(friendId)));
+
+            userStorage.removeFriendship(id, friendId);
+            userStorage.removeFriendship(friendId, id);
+            assertEquals(0, count(shards.forUser(id), "FRIENDSHIP"));
+            assertEquals(0, count(shards.forUser(friendId), "FRIENDSHIP"));
+        }
+    }
+
+    private boolean add(CyclicBarrier barrier, Long id, Long friendId) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return userStorage.addFriendship(id, friendId);
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@ya.ru");
+            user.setLogin("user" + i);
+            user.setName("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            users.add(userService.create(user));
+        }
+        return users;
+    }
+
+    private User otherShard(List<User> users, User user) {
+        return users.stream()
+                .filter(other -> shards.indexOf(other.getId()) != shards.indexOf(user.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Film getFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Rating(1L));
+        return film;
+    }
+
+    private static List<Long> ids(List<? extends AbstractEntity> entities) {
+        return entities.stream().map(AbstractEntity::getId).collect(Collectors.toList());
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + from, Long.class);
+    }
+}